@@ -0,0 +1,119 @@
+package com.pnikosis.materialishprogress;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per frame work of the {@link ProgressWheel}, each operation is one frame.
+ *
+ * The time is reported in ns/frame, and the allocations in
+ * bytes/frame by the gc profiler (gc.alloc.rate.norm).
+ */
+@BenchmarkMode(Mode.AverageTime) @OutputTimeUnit(TimeUnit.NANOSECONDS) @Warmup(iterations = 5)
+@Measurement(iterations = 10) @Fork(1) @State(Scope.Thread) public class WheelFrameBenchmark {
+  // A 60 fps frame
+  private static final long FRAME = 16666667L;
+
+  private WheelAnimator spinning;
+  private WheelAnimator nonLinear;
+  private WheelAnimator linear;
+  private long frameTime;
+  private float degrees;
+  private float position;
+
+  @Setup public void setUp() {
+    frameTime = 0;
+
+    spinning = new WheelAnimator();
+    spinning.spin(frameTime);
+
+    nonLinear = new WheelAnimator();
+    nonLinear.setTargetProgress(360.0f, frameTime);
+
+    linear = new WheelAnimator();
+    linear.setLinearProgress(true);
+    linear.setTargetProgress(360.0f, frameTime);
+  }
+
+  /**
+   * Indeterminate frame, spin plus the bar growth from its lookup table
+   */
+  @Benchmark public float indeterminateFrame() {
+    frameTime += FRAME;
+    spinning.update(frameTime);
+    return spinning.getArcStart() + spinning.getArcSweep();
+  }
+
+  /**
+   * Determinate non linear frame, with the sweep and offset lookup tables
+   */
+  @Benchmark public float determinateNonLinearFrame() {
+    frameTime += FRAME;
+    animateProgress(nonLinear);
+    return nonLinear.getArcStart() + nonLinear.getArcSweep();
+  }
+
+  /**
+   * Determinate linear frame, the baseline for the non linear one
+   */
+  @Benchmark public float determinateLinearFrame() {
+    frameTime += FRAME;
+    animateProgress(linear);
+    return linear.getArcStart() + linear.getArcSweep();
+  }
+
+  /**
+   * The three easing curves of the wheel, from their lookup tables
+   */
+  @Benchmark public float easingTables() {
+    float x = nextPosition();
+    return WheelEasing.BAR_GROWTH.valueAt(x) + WheelEasing.PROGRESS_SWEEP.valueAt(x)
+        + WheelEasing.PROGRESS_OFFSET.valueAt(x);
+  }
+
+  /**
+   * The same curves with Math.cos and Math.pow, the baseline for the lookup tables
+   */
+  @Benchmark public float easingMath() {
+    float x = nextPosition();
+    return (float) Math.cos((x + 1) * Math.PI) / 2 + 0.5f
+        + (float) (1.0f - Math.pow(1.0f - x, 2.0f))
+        + (float) (1.0f - Math.pow(1.0f - x, 4.0f));
+  }
+
+  /**
+   * The rounding done for every progress callback
+   */
+  @Benchmark public float callbackRounding() {
+    degrees += 0.37f;
+    if (degrees > 360.0f) {
+      degrees -= 360.0f;
+    }
+    return WheelAnimator.roundProgress(degrees);
+  }
+
+  private float nextPosition() {
+    position += 0.0137f;
+    if (position > 1.0f) {
+      position -= 1.0f;
+    }
+    return position;
+  }
+
+  private void animateProgress(WheelAnimator animator) {
+    if (!animator.update(frameTime)) {
+      // Target reached, start over so every frame keeps animating
+      animator.resetCount();
+      animator.setTargetProgress(360.0f, frameTime);
+    }
+  }
+}
@@ -0,0 +1,9 @@
+package com.pnikosis.materialishprogress;
+
+import android.app.Activity;
+
+/**
+ * An empty hardware accelerated window, for the tests to draw in
+ */
+public class ArcBenchmarkActivity extends Activity {
+}
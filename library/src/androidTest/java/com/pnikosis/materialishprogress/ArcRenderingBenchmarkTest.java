@@ -0,0 +1,154 @@
+package com.pnikosis.materialishprogress;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Picture;
+import android.graphics.RectF;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+/**
+ * Compares drawing a big, thick wheel with stroked arcs and with prebuilt paths.
+ * The software canvas draws to a bitmap, the picture canvas records the calls
+ * in a {@link Picture}, which is a software recording, not the display list of
+ * a hardware accelerated view, that is measured by {@link HardwareArcRenderingTest}.
+ * The times are logged, and the paths are checked to draw the same pixels as the arcs.
+ */
+public class ArcRenderingBenchmarkTest extends AndroidTestCase {
+  private static final String TAG = ArcRenderingBenchmarkTest.class.getSimpleName();
+  private static final int SIZE = 600;
+  private static final int BAR_WIDTH = 48;
+  private static final int FRAMES = 300;
+  private static final long FRAME_NANOS = 16666667L;
+  // A path is rebuilt when the bar moves a pixel, so its outer edge can be off by one
+  private static final int MAX_DIFFERENT_PIXELS = (int) (Math.PI * SIZE);
+
+  private final RectF circleBounds = new RectF(BAR_WIDTH, BAR_WIDTH, SIZE - BAR_WIDTH,
+      SIZE - BAR_WIDTH);
+  private final Paint barPaint = strokePaint(0xAA000000, BAR_WIDTH);
+  private final Paint rimPaint = strokePaint(0x44000000, BAR_WIDTH);
+  private final ArcPathRenderer pathRenderer = new ArcPathRenderer();
+  private final WheelAnimator animator = new WheelAnimator();
+  private long frameTime;
+
+  public void testSoftwareCanvas() {
+    Bitmap bitmap = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+    Canvas canvas = new Canvas(bitmap);
+
+    long arcs = measure(canvas, null, false);
+    long paths = measure(canvas, null, true);
+    report("software", arcs, paths);
+    bitmap.recycle();
+  }
+
+  public void testPictureCanvas() {
+    Picture picture = new Picture();
+
+    long arcs = measure(null, picture, false);
+    long paths = measure(null, picture, true);
+    report("picture", arcs, paths);
+  }
+
+  public void testPathsMatchArcs() {
+    Bitmap arcs = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+    Bitmap paths = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+    Canvas arcCanvas = new Canvas(arcs);
+    Canvas pathCanvas = new Canvas(paths);
+
+    animator.spin(frameTime);
+    for (int i = 0; i < FRAMES; i++) {
+      frameTime += FRAME_NANOS;
+      animator.update(frameTime);
+      // The bar grows and shrinks along a few cycles
+      if (i % 10 != 0) {
+        continue;
+      }
+
+      arcs.eraseColor(Color.TRANSPARENT);
+      paths.eraseColor(Color.TRANSPARENT);
+      drawFrame(arcCanvas, false);
+      drawFrame(pathCanvas, true);
+      assertSamePixels("Frame " + i, arcs, paths);
+    }
+    arcs.recycle();
+    paths.recycle();
+  }
+
+  /**
+   * @return the nanoseconds to draw a frame, on the canvas or recording the picture
+   */
+  private long measure(Canvas canvas, Picture picture, boolean usePaths) {
+    animator.spin(frameTime);
+    // Warm up
+    drawFrames(canvas, picture, usePaths);
+
+    long start = System.nanoTime();
+    drawFrames(canvas, picture, usePaths);
+    return (System.nanoTime() - start) / FRAMES;
+  }
+
+  private void drawFrames(Canvas canvas, Picture picture, boolean usePaths) {
+    for (int i = 0; i < FRAMES; i++) {
+      frameTime += FRAME_NANOS;
+      animator.update(frameTime);
+
+      Canvas frameCanvas = picture != null ? picture.beginRecording(SIZE, SIZE) : canvas;
+      drawFrame(frameCanvas, usePaths);
+      if (picture != null) {
+        picture.endRecording();
+      }
+    }
+  }
+
+  private void drawFrame(Canvas canvas, boolean usePaths) {
+    if (usePaths) {
+      pathRenderer.drawRim(canvas, circleBounds, rimPaint);
+      pathRenderer.drawBar(canvas, circleBounds, animator.getArcStart(), animator.getArcSweep(),
+          barPaint);
+    } else {
+      canvas.drawArc(circleBounds, 360, 360, false, rimPaint);
+      canvas.drawArc(circleBounds, animator.getArcStart(), animator.getArcSweep(), false,
+          barPaint);
+    }
+  }
+
+  /**
+   * Fails if the bitmaps differ by more than the anti-aliasing of an edge, in too many pixels
+   */
+  private static void assertSamePixels(String message, Bitmap expected, Bitmap actual) {
+    int[] expectedPixels = new int[SIZE * SIZE];
+    int[] actualPixels = new int[SIZE * SIZE];
+    expected.getPixels(expectedPixels, 0, SIZE, 0, 0, SIZE, SIZE);
+    actual.getPixels(actualPixels, 0, SIZE, 0, 0, SIZE, SIZE);
+
+    int drawn = 0;
+    int different = 0;
+    for (int i = 0; i < expectedPixels.length; i++) {
+      int expectedAlpha = Color.alpha(expectedPixels[i]);
+      if (expectedAlpha != 0) {
+        drawn++;
+      }
+      if (Math.abs(expectedAlpha - Color.alpha(actualPixels[i])) > 0x40) {
+        different++;
+      }
+    }
+
+    assertTrue(message + ": nothing drawn", drawn > 0);
+    assertTrue(message + ": " + different + " different pixels",
+        different <= MAX_DIFFERENT_PIXELS);
+  }
+
+  private static void report(String canvasType, long arcs, long paths) {
+    Log.i(TAG, canvasType + " canvas, ns per frame: arcs " + arcs + ", paths " + paths);
+  }
+
+  private static Paint strokePaint(int color, int width) {
+    Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    paint.setColor(color);
+    paint.setStyle(Paint.Style.STROKE);
+    paint.setStrokeWidth(width);
+    return paint;
+  }
+}
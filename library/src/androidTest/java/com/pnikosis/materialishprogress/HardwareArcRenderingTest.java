@@ -0,0 +1,123 @@
+package com.pnikosis.materialishprogress;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.os.Build;
+import android.test.ActivityInstrumentationTestCase2;
+import android.util.Log;
+import android.view.View;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares drawing a big, thick wheel with stroked arcs and with prebuilt paths
+ * in a hardware accelerated window. The time to record a frame on the UI thread
+ * is measured, and the interval between frames, which only grows past the
+ * display refresh when the render thread can't keep up. The times are logged.
+ */
+public class HardwareArcRenderingTest
+    extends ActivityInstrumentationTestCase2<ArcBenchmarkActivity> {
+  private static final String TAG = HardwareArcRenderingTest.class.getSimpleName();
+  private static final int SIZE = 600;
+  private static final int BAR_WIDTH = 48;
+  private static final int WARM_UP_FRAMES = 60;
+  private static final int FRAMES = 300;
+
+  public HardwareArcRenderingTest() {
+    super(ArcBenchmarkActivity.class);
+  }
+
+  public void testHardwareCanvas() throws Throwable {
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.HONEYCOMB) {
+      // There is no hardware acceleration
+      return;
+    }
+
+    BenchmarkView arcs = measure(false);
+    BenchmarkView paths = measure(true);
+    Log.i(TAG, "hardware canvas, ns to record a frame: arcs " + arcs.recordingNanos / FRAMES
+        + ", paths " + paths.recordingNanos / FRAMES + "; ns between frames: arcs "
+        + arcs.intervalNanos / FRAMES + ", paths " + paths.intervalNanos / FRAMES);
+  }
+
+  private BenchmarkView measure(boolean usePaths) throws Throwable {
+    final BenchmarkView view = new BenchmarkView(getActivity(), usePaths);
+    runTestOnUiThread(new Runnable() {
+      @Override public void run() {
+        getActivity().setContentView(view);
+      }
+    });
+
+    assertTrue("The frames weren't drawn", view.done.await(30, TimeUnit.SECONDS));
+    assertTrue("The window isn't hardware accelerated", view.hardwareAccelerated);
+    return view;
+  }
+
+  /**
+   * Draws a frame after another until it's measured all of them
+   */
+  private static class BenchmarkView extends View {
+    final CountDownLatch done = new CountDownLatch(1);
+    boolean hardwareAccelerated = true;
+    long recordingNanos;
+    long intervalNanos;
+
+    private final boolean usePaths;
+    private final RectF circleBounds = new RectF(BAR_WIDTH, BAR_WIDTH, SIZE - BAR_WIDTH,
+        SIZE - BAR_WIDTH);
+    private final Paint barPaint = strokePaint(0xAA000000, BAR_WIDTH);
+    private final Paint rimPaint = strokePaint(0x44000000, BAR_WIDTH);
+    private final ArcPathRenderer pathRenderer = new ArcPathRenderer();
+    private final WheelAnimator animator = new WheelAnimator();
+    private long frameTime;
+    private int frame;
+    private long firstFrameStart;
+
+    BenchmarkView(Context context, boolean usePaths) {
+      super(context);
+      this.usePaths = usePaths;
+      animator.spin(frameTime);
+    }
+
+    @TargetApi(Build.VERSION_CODES.HONEYCOMB) @Override protected void onDraw(Canvas canvas) {
+      long start = System.nanoTime();
+      hardwareAccelerated &= canvas.isHardwareAccelerated();
+      frameTime += 16666667L;
+      animator.update(frameTime);
+
+      if (usePaths) {
+        pathRenderer.drawRim(canvas, circleBounds, rimPaint);
+        pathRenderer.drawBar(canvas, circleBounds, animator.getArcStart(),
+            animator.getArcSweep(), barPaint);
+      } else {
+        canvas.drawArc(circleBounds, 360, 360, false, rimPaint);
+        canvas.drawArc(circleBounds, animator.getArcStart(), animator.getArcSweep(), false,
+            barPaint);
+      }
+
+      frame++;
+      if (frame == WARM_UP_FRAMES) {
+        firstFrameStart = start;
+      } else if (frame > WARM_UP_FRAMES) {
+        recordingNanos += System.nanoTime() - start;
+      }
+      if (frame == WARM_UP_FRAMES + FRAMES) {
+        intervalNanos = start - firstFrameStart;
+        done.countDown();
+      } else {
+        invalidate();
+      }
+    }
+  }
+
+  private static Paint strokePaint(int color, int width) {
+    Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    paint.setColor(color);
+    paint.setStyle(Paint.Style.STROKE);
+    paint.setStrokeWidth(width);
+    return paint;
+  }
+}
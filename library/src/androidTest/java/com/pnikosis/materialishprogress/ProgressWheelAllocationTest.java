@@ -0,0 +1,61 @@
+package com.pnikosis.materialishprogress;
+
+import android.os.Debug;
+import android.test.AndroidTestCase;
+import android.view.View;
+
+/**
+ * Checks the layout and reconfiguration paths of the wheel don't allocate
+ */
+public class ProgressWheelAllocationTest extends AndroidTestCase {
+  private static final int ITERATIONS = 100;
+
+  private ProgressWheel wheel;
+
+  @Override protected void setUp() throws Exception {
+    super.setUp();
+    wheel = new ProgressWheel(getContext());
+    wheel.measure(View.MeasureSpec.makeMeasureSpec(200, View.MeasureSpec.EXACTLY),
+        View.MeasureSpec.makeMeasureSpec(200, View.MeasureSpec.EXACTLY));
+    wheel.layout(0, 0, 200, 200);
+  }
+
+  public void testResizeDoesNotAllocate() {
+    assertNoAllocations(new Runnable() {
+      @Override public void run() {
+        for (int i = 0; i < ITERATIONS; i++) {
+          int size = 100 + i % 2 * 100;
+          wheel.layout(0, 0, size, size);
+        }
+      }
+    });
+  }
+
+  public void testSettersDoNotAllocate() {
+    assertNoAllocations(new Runnable() {
+      @Override public void run() {
+        for (int i = 0; i < ITERATIONS; i++) {
+          wheel.setBarColor(0xFF000000 | i);
+          wheel.setRimColor(0xFF000000 | i);
+          wheel.setBarWidth(i % 10 + 1);
+          wheel.setRimWidth(i % 10 + 1);
+          wheel.setCircleRadius(i % 50 + 10);
+          wheel.setLinearProgress(i % 2 == 0);
+          wheel.setSpinSpeed(i % 3 + 1);
+        }
+      }
+    });
+  }
+
+  private static void assertNoAllocations(Runnable runnable) {
+    // Warm up, so lazy initializations in the framework aren't counted
+    runnable.run();
+
+    Debug.resetThreadAllocCount();
+    Debug.startAllocCounting();
+    runnable.run();
+    Debug.stopAllocCounting();
+
+    assertEquals(0, Debug.getThreadAllocCount());
+  }
+}
@@ -0,0 +1,127 @@
+package com.pnikosis.materialishprogress;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.os.Build;
+import android.os.Debug;
+import android.provider.Settings;
+import android.test.AndroidTestCase;
+import android.util.Log;
+import android.view.View;
+
+/**
+ * Measures the memory each wheel takes, for screens with hundreds of them,
+ * against the wheel as it was before sharing its style
+ */
+public class ProgressWheelFootprintTest extends AndroidTestCase {
+  private static final String TAG = ProgressWheelFootprintTest.class.getSimpleName();
+  private static final int WHEELS = 200;
+
+  public void testWheelsShareTheirStyle() {
+    ProgressWheel[] wheels = new ProgressWheel[WHEELS];
+    for (int i = 0; i < WHEELS; i++) {
+      wheels[i] = new ProgressWheel(getContext());
+    }
+
+    for (ProgressWheel wheel : wheels) {
+      assertSame(wheels[0].getStyle(), wheel.getStyle());
+    }
+  }
+
+  public void testFootprint() {
+    int baseline = bytesPerWheel(new Factory() {
+      @Override public View create(Context context) {
+        return new BaselineWheel(context);
+      }
+    });
+    int shared = bytesPerWheel(new Factory() {
+      @Override public View create(Context context) {
+        return new ProgressWheel(context);
+      }
+    });
+    int unshared = bytesPerWheel(new Factory() {
+      @Override public View create(Context context) {
+        ProgressWheel wheel = new ProgressWheel(context);
+        // Changing the look copies the style, with its own paints
+        wheel.setBarColor(0xFF000000);
+        return wheel;
+      }
+    });
+
+    Log.i(TAG, "Bytes allocated per wheel: " + shared + ", with its own style " + unshared
+        + ", before sharing the style " + baseline);
+    assertTrue("Sharing the style saves nothing, " + shared + " bytes against " + unshared,
+        shared < unshared);
+    // What the wheel holds since then, like its animator, costs less than the paints it shares
+    assertTrue("A wheel takes " + (shared - baseline) + " bytes more than before, sharing the"
+        + " style saves " + (unshared - shared), shared - baseline < unshared - shared);
+  }
+
+  /**
+   * @return the bytes allocated to create a wheel, including the view itself
+   */
+  private int bytesPerWheel(Factory factory) {
+    View[] wheels = new View[WHEELS];
+    // Warm up, so the shared style and lazy initializations in the framework aren't counted
+    for (int i = 0; i < WHEELS; i++) {
+      wheels[i] = factory.create(getContext());
+    }
+
+    Debug.resetThreadAllocCount();
+    Debug.startAllocCounting();
+    for (int i = 0; i < WHEELS; i++) {
+      wheels[i] = factory.create(getContext());
+    }
+    Debug.stopAllocCounting();
+    return Debug.getThreadAllocSize() / WHEELS;
+  }
+
+  private interface Factory {
+    View create(Context context);
+  }
+
+  /**
+   * The state each wheel created in code had before sharing its style:
+   * two paints, its bounds and the animation values, and the animator
+   * duration scale read on construction
+   */
+  @SuppressWarnings("unused") private static class BaselineWheel extends View {
+    private int circleRadius = 28;
+    private int barWidth = 4;
+    private int rimWidth = 4;
+    private boolean fillRadius = false;
+    private double timeStartGrowing = 0;
+    private double barSpinCycleTime = 460;
+    private float barExtraLength = 0;
+    private boolean barGrowingFromFront = true;
+    private long pausedTimeWithoutGrowing = 0;
+    private int barColor = 0xAA000000;
+    private int rimColor = 0x00FFFFFF;
+    private Paint barPaint = new Paint();
+    private Paint rimPaint = new Paint();
+    private RectF circleBounds = new RectF();
+    private float spinSpeed = 230.0f;
+    private long lastTimeAnimated = 0;
+    private boolean linearProgress;
+    private float mProgress = 0.0f;
+    private float mTargetProgress = 0.0f;
+    private boolean isSpinning = false;
+    private ProgressWheel.ProgressCallback callback;
+    private boolean shouldAnimate;
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1) BaselineWheel(Context context) {
+      super(context);
+      float animationValue;
+      if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+        animationValue = Settings.Global.getFloat(context.getContentResolver(),
+            Settings.Global.ANIMATOR_DURATION_SCALE, 1);
+      } else {
+        animationValue = Settings.System.getFloat(context.getContentResolver(),
+            Settings.System.ANIMATOR_DURATION_SCALE, 1);
+      }
+      shouldAnimate = animationValue != 0;
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package com.pnikosis.materialishprogress;
+
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+
+/**
+ * Draws the rim and the bar of a wheel as filled paths, instead of stroked arcs.
+ *
+ * The outline of the stroke is worked out once with {@link Paint#getFillPath(Path, Path)},
+ * so a frame only fills a path, which is cheaper than stroking a thick arc
+ * on a software canvas. The bar is built from angle 0 and drawn rotated
+ * to its start, so spinning doesn't change its path, and it's only built again
+ * when its length changes by a pixel or more at the outer edge.
+ * A bar paint with a shader is drawn from a rotated copy of the path instead,
+ * so the shader stays in place like with a stroked arc.
+ * Turning an arc only follows a circle, so the bar of an oval wheel, with fillRadius
+ * in a view that isn't square, is built at its start whenever it moves.
+ */
+final class ArcPathRenderer {
+  // Temporary path with the centerline of the stroke
+  private final Path centerline = new Path();
+
+  private final Path barPath = new Path();
+  private final Paint barFillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private final RectF barBounds = new RectF();
+  // The bar turned to its start, only for bars with a shader
+  private final Path rotatedBarPath = new Path();
+  private final Matrix rotation = new Matrix();
+  private float barSweep = Float.NaN;
+  // Where the path starts, 0 unless the bounds are an oval
+  private float barStart;
+  private float barWidth;
+  private Paint.Cap barCap;
+  // Degrees the bar has to change to move a pixel at its outer edge
+  private float sweepStep;
+
+  private final Path rimPath = new Path();
+  private final Paint rimFillPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+  private final RectF rimBounds = new RectF();
+  private float rimWidth = Float.NaN;
+
+  /**
+   * Draws the bar as the arc {@link Canvas#drawArc(RectF, float, float, boolean, Paint)}
+   * would draw with the stroke paint
+   */
+  void drawBar(Canvas canvas, RectF circleBounds, float start, float sweep, Paint barPaint) {
+    if (!barBounds.equals(circleBounds)
+        || barPaint.getStrokeWidth() != barWidth
+        || barPaint.getStrokeCap() != barCap) {
+      barBounds.set(circleBounds);
+      barWidth = barPaint.getStrokeWidth();
+      barCap = barPaint.getStrokeCap();
+      float outerRadius = Math.max(barBounds.width(), barBounds.height()) / 2 + barWidth / 2;
+      sweepStep = outerRadius > 0 ? (float) (180 / (Math.PI * outerRadius)) : 360;
+      barSweep = Float.NaN;
+    }
+
+    if (barBounds.width() != barBounds.height()) {
+      if (sweep != barSweep || start != barStart) {
+        buildBar(start, sweep, barPaint);
+      }
+      updateFillPaint(barFillPaint, barPaint);
+      canvas.drawPath(barPath, barFillPaint);
+      return;
+    }
+
+    // An empty or full bar is always exact
+    if (sweep != barSweep
+        && (Float.isNaN(barSweep) || Math.abs(sweep - barSweep) >= sweepStep || sweep <= 0
+        || sweep >= 360)) {
+      buildBar(0, sweep, barPaint);
+    }
+
+    updateFillPaint(barFillPaint, barPaint);
+
+    if (barFillPaint.getShader() != null) {
+      // Rotating the canvas would turn the shader with the bar
+      rotation.setRotate(start, barBounds.centerX(), barBounds.centerY());
+      barPath.transform(rotation, rotatedBarPath);
+      canvas.drawPath(rotatedBarPath, barFillPaint);
+      return;
+    }
+
+    canvas.save();
+    canvas.rotate(start, barBounds.centerX(), barBounds.centerY());
+    canvas.drawPath(barPath, barFillPaint);
+    canvas.restore();
+  }
+
+  private void buildBar(float start, float sweep, Paint barPaint) {
+    barStart = start;
+    barSweep = sweep;
+    barPath.reset();
+    if (sweep <= 0) {
+      return;
+    }
+
+    centerline.reset();
+    if (sweep >= 360) {
+      centerline.addOval(barBounds, Path.Direction.CW);
+    } else {
+      centerline.addArc(barBounds, start, sweep);
+    }
+    barPaint.getFillPath(centerline, barPath);
+  }
+
+  /**
+   * Draws the rim, a full circle stroked with the rim paint
+   */
+  void drawRim(Canvas canvas, RectF circleBounds, Paint rimPaint) {
+    if (!rimBounds.equals(circleBounds) || rimPaint.getStrokeWidth() != rimWidth) {
+      rimBounds.set(circleBounds);
+      rimWidth = rimPaint.getStrokeWidth();
+
+      centerline.reset();
+      centerline.addOval(rimBounds, Path.Direction.CW);
+      rimPath.reset();
+      rimPaint.getFillPath(centerline, rimPath);
+    }
+
+    updateFillPaint(rimFillPaint, rimPaint);
+    canvas.drawPath(rimPath, rimFillPaint);
+  }
+
+  private static void updateFillPaint(Paint fillPaint, Paint strokePaint) {
+    if (fillPaint.getColor() != strokePaint.getColor()) {
+      fillPaint.setColor(strokePaint.getColor());
+    }
+    if (fillPaint.getShader() != strokePaint.getShader()) {
+      fillPaint.setShader(strokePaint.getShader());
+    }
+  }
+}
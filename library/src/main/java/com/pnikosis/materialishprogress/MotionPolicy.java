@@ -0,0 +1,168 @@
+package com.pnikosis.materialishprogress;
+
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+import android.provider.Settings;
+import java.util.ArrayList;
+
+/**
+ * How much the wheels can move, from the system settings: the animator duration
+ * scale, set to 0 when the user turns animations off, and the battery saver.
+ *
+ * The settings are read once per process and watched for changes, instead of
+ * being read by every wheel created. The wheels attached to a window are told
+ * when they change, so they can stop animating, drawing their progress still,
+ * or lower their frame rate.
+ */
+final class MotionPolicy {
+  private static MotionPolicy instance;
+
+  private final Context context;
+  private final ContentObserver animatorScaleObserver;
+  // Null before Lollipop, there is no battery saver
+  private final BroadcastReceiver powerSaveReceiver;
+  // The wheels attached to a window
+  private final ArrayList<ProgressWheel> wheels = new ArrayList<ProgressWheel>();
+  private boolean animationEnabled;
+  private boolean powerSaveMode;
+
+  private MotionPolicy(Context context) {
+    this.context = context;
+
+    Handler handler = new Handler(Looper.getMainLooper());
+    animatorScaleObserver = new ContentObserver(handler) {
+      @Override public void onChange(boolean selfChange) {
+        refresh();
+      }
+    };
+    context.getContentResolver()
+        .registerContentObserver(animatorScaleUri(), false, animatorScaleObserver);
+
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+      powerSaveReceiver = new BroadcastReceiver() {
+        @Override public void onReceive(Context context, Intent intent) {
+          refresh();
+        }
+      };
+      context.registerReceiver(powerSaveReceiver,
+          new IntentFilter(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED));
+    } else {
+      powerSaveReceiver = null;
+    }
+
+    animationEnabled = readAnimatorScale() != 0;
+    powerSaveMode = readPowerSaveMode();
+  }
+
+  /**
+   * Must be called on the UI thread
+   */
+  static MotionPolicy getInstance(Context context) {
+    Context applicationContext = context.getApplicationContext();
+    if (applicationContext == null) {
+      applicationContext = context;
+    }
+
+    // One per process, it lives as long as the application
+    if (instance == null) {
+      instance = new MotionPolicy(applicationContext);
+    }
+    return instance;
+  }
+
+  /**
+   * Stops watching the settings and forgets the instance, only for the tests,
+   * which create a new application for each test
+   */
+  static void reset() {
+    if (instance == null) {
+      return;
+    }
+
+    instance.context.getContentResolver().unregisterContentObserver(instance.animatorScaleObserver);
+    if (instance.powerSaveReceiver != null) {
+      instance.context.unregisterReceiver(instance.powerSaveReceiver);
+    }
+    instance = null;
+  }
+
+  /**
+   * @return false if the user turned animations off
+   */
+  boolean isAnimationEnabled() {
+    return animationEnabled;
+  }
+
+  /**
+   * @return true if the system is saving battery
+   */
+  boolean isPowerSaveMode() {
+    return powerSaveMode;
+  }
+
+  /**
+   * Tells the wheel when the settings change, while it's attached
+   */
+  void addWheel(ProgressWheel wheel) {
+    if (!wheels.contains(wheel)) {
+      wheels.add(wheel);
+    }
+  }
+
+  void removeWheel(ProgressWheel wheel) {
+    wheels.remove(wheel);
+  }
+
+  /**
+   * Reads the settings again, and tells the attached wheels if they changed
+   */
+  void refresh() {
+    boolean animationEnabled = readAnimatorScale() != 0;
+    boolean powerSaveMode = readPowerSaveMode();
+    if (animationEnabled == this.animationEnabled && powerSaveMode == this.powerSaveMode) {
+      return;
+    }
+
+    this.animationEnabled = animationEnabled;
+    this.powerSaveMode = powerSaveMode;
+    for (int i = wheels.size() - 1; i >= 0; i--) {
+      wheels.get(i).onMotionPolicyChanged();
+    }
+  }
+
+  @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1) private static Uri animatorScaleUri() {
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+      return Settings.Global.getUriFor(Settings.Global.ANIMATOR_DURATION_SCALE);
+    } else {
+      return Settings.System.getUriFor(Settings.System.ANIMATOR_DURATION_SCALE);
+    }
+  }
+
+  @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1) private float readAnimatorScale() {
+    ContentResolver resolver = context.getContentResolver();
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+      return Settings.Global.getFloat(resolver, Settings.Global.ANIMATOR_DURATION_SCALE, 1);
+    } else {
+      return Settings.System.getFloat(resolver, Settings.System.ANIMATOR_DURATION_SCALE, 1);
+    }
+  }
+
+  @TargetApi(Build.VERSION_CODES.LOLLIPOP) private boolean readPowerSaveMode() {
+    if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+      return false;
+    }
+
+    PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+    return powerManager != null && powerManager.isPowerSaveMode();
+  }
+}
@@ -0,0 +1,331 @@
+package com.pnikosis.materialishprogress;
+
+import java.util.Arrays;
+
+/**
+ * Delivers the progress updates of a {@link ProgressWheel} to its callback,
+ * and the progress events to its listener.
+ *
+ * By default every update is delivered right away, from the frame that changed
+ * the progress. In coalesced mode, an update is only delivered if its rounded
+ * value changed, at most once per interval, and always posted to the
+ * message queue, so a slow callback doesn't make the frame longer.
+ * The -1 of every spin cycle is still delivered, they are events, not values.
+ *
+ * The precise callback gets the progress without rounding, right away, but only
+ * when an end of the arc drawn moved at least a pixel, or the bar reached the
+ * progress set. In non linear mode the arc is eased, so it can move more or
+ * less than the progress.
+ *
+ * The listener events are delivered right away, with the time of the frame
+ * they happened in.
+ */
+final class ProgressDispatcher implements Runnable {
+  private final ProgressWheel wheel;
+  // Gives the arc drawn for the progress
+  private final WheelAnimator animator;
+  private ProgressWheel.ProgressCallback callback;
+  private ProgressWheel.ProgressListener listener;
+  private ProgressWheel.PreciseProgressCallback preciseCallback;
+
+  // Progress thresholds, in degrees, sorted, null until one is added
+  private float[] thresholds;
+  private int thresholdCount = 0;
+
+  private boolean coalesced = false;
+  private long minIntervalNanos = 0;
+
+  // Coalesced mode state, NaN when there's no value
+  private float deliveredValue = Float.NaN;
+  private float pendingValue = Float.NaN;
+  // Spin cycles waiting to be delivered, as a -1 each
+  private int pendingCycles = 0;
+  private long lastDeliveryTime = 0;
+  private boolean posted = false;
+
+  // The progress set, exact and in degrees, delivered as is when the bar reaches it
+  private double exactTarget = 0;
+  private float exactTargetDegrees = 0;
+  // Degrees the bar moves for a pixel at its outer edge, 0 before the wheel is laid out
+  private float pixelStep = 0;
+  // Last precise delivery and the ends of its arc, NaN when there's none
+  private double preciseValue = Double.NaN;
+  private float preciseArcStart = Float.NaN;
+  private float preciseArcEnd = Float.NaN;
+
+  ProgressDispatcher(ProgressWheel wheel, WheelAnimator animator) {
+    this.wheel = wheel;
+    this.animator = animator;
+  }
+
+  /**
+   * Sets the callback, delivering every update right away
+   */
+  void setCallback(ProgressWheel.ProgressCallback callback) {
+    setCallback(callback, false, 0);
+  }
+
+  /**
+   * Sets the callback
+   *
+   * @param coalesced true to only deliver changes of the rounded value, posted
+   * @param minIntervalNanos the minimum time between two coalesced deliveries
+   */
+  void setCallback(ProgressWheel.ProgressCallback callback, boolean coalesced,
+      long minIntervalNanos) {
+    cancel();
+    this.callback = callback;
+    this.coalesced = coalesced;
+    this.minIntervalNanos = minIntervalNanos;
+    deliveredValue = Float.NaN;
+    pendingValue = Float.NaN;
+    pendingCycles = 0;
+  }
+
+  void setPreciseCallback(ProgressWheel.PreciseProgressCallback preciseCallback) {
+    this.preciseCallback = preciseCallback;
+    preciseValue = Double.NaN;
+    preciseArcStart = Float.NaN;
+    preciseArcEnd = Float.NaN;
+  }
+
+  /**
+   * Sets the progress set on the wheel, at full precision
+   *
+   * @param fraction the progress, between 0 and 1
+   * @param degrees the same progress in degrees, as animated
+   */
+  void setExactTarget(double fraction, float degrees) {
+    exactTarget = fraction;
+    exactTargetDegrees = degrees;
+  }
+
+  /**
+   * @param pixelStep the degrees an end of the arc moves for a pixel, 0 to deliver every change
+   */
+  void setPixelStep(float pixelStep) {
+    this.pixelStep = pixelStep;
+  }
+
+  void setListener(ProgressWheel.ProgressListener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Adds a threshold, the listener is notified when the progress crosses it
+   *
+   * @param degrees the threshold, in degrees
+   */
+  void addThreshold(float degrees) {
+    int index = indexOfThreshold(degrees);
+    if (index >= 0) {
+      return;
+    }
+
+    if (thresholds == null) {
+      thresholds = new float[4];
+    } else if (thresholdCount == thresholds.length) {
+      float[] grown = new float[thresholds.length * 2];
+      System.arraycopy(thresholds, 0, grown, 0, thresholdCount);
+      thresholds = grown;
+    }
+
+    // Keeps them sorted, so they are notified in order
+    int insertAt = -index - 1;
+    System.arraycopy(thresholds, insertAt, thresholds, insertAt + 1, thresholdCount - insertAt);
+    thresholds[insertAt] = degrees;
+    thresholdCount++;
+  }
+
+  void removeThreshold(float degrees) {
+    int index = indexOfThreshold(degrees);
+    if (index < 0) {
+      return;
+    }
+
+    System.arraycopy(thresholds, index + 1, thresholds, index, thresholdCount - index - 1);
+    thresholdCount--;
+  }
+
+  void clearThresholds() {
+    thresholdCount = 0;
+  }
+
+  private int indexOfThreshold(float degrees) {
+    if (thresholdCount == 0) {
+      return -1;
+    }
+    return Arrays.binarySearch(thresholds, 0, thresholdCount, degrees);
+  }
+
+  /**
+   * The progress is set, without being changed by the animation
+   *
+   * @param degrees the progress, in degrees
+   */
+  void dispatchProgress(float degrees) {
+    if (callback != null) {
+      dispatch(WheelAnimator.roundProgress(degrees));
+    }
+
+    if (preciseCallback != null) {
+      dispatchPrecise(degrees);
+    }
+  }
+
+  private void dispatchPrecise(float degrees) {
+    boolean atTarget = degrees == exactTargetDegrees;
+    double value = atTarget ? exactTarget : degrees / 360.0;
+    if (value == preciseValue) {
+      return;
+    }
+
+    // Changes smaller than a pixel can't be seen, the target is always delivered
+    float arcStart = animator.getArcStart();
+    float arcEnd = arcStart + animator.getArcSweep();
+    if (!atTarget && !Float.isNaN(preciseArcStart)
+        && Math.abs(arcStart - preciseArcStart) < pixelStep
+        && Math.abs(arcEnd - preciseArcEnd) < pixelStep) {
+      return;
+    }
+
+    preciseArcStart = arcStart;
+    preciseArcEnd = arcEnd;
+    preciseValue = value;
+    preciseCallback.onProgressUpdate(value);
+  }
+
+  /**
+   * The progress changed
+   *
+   * @param oldDegrees the previous progress, in degrees
+   * @param degrees the new progress, in degrees
+   * @param targetDegrees the progress the wheel is animating to, in degrees
+   * @param timeNanos the time of the change
+   */
+  void dispatchProgress(float oldDegrees, float degrees, float targetDegrees, long timeNanos) {
+    dispatchProgress(degrees);
+
+    if (listener == null) {
+      return;
+    }
+
+    long timeMillis = timeNanos / WheelClock.NANOS_PER_MILLI;
+    if (degrees > oldDegrees) {
+      for (int i = 0; i < thresholdCount; i++) {
+        if (oldDegrees < thresholds[i] && degrees >= thresholds[i]) {
+          listener.onThresholdCrossed(thresholds[i] / 360.0f, true, timeMillis);
+        }
+      }
+    } else {
+      for (int i = thresholdCount - 1; i >= 0; i--) {
+        if (oldDegrees >= thresholds[i] && degrees < thresholds[i]) {
+          listener.onThresholdCrossed(thresholds[i] / 360.0f, false, timeMillis);
+        }
+      }
+    }
+
+    if (degrees == targetDegrees) {
+      listener.onTargetReached(degrees / 360.0f, timeMillis);
+    }
+  }
+
+  /**
+   * The spinning wheel completed a turn, reported as -1 to the callback
+   *
+   * @param cycle the number of turns completed since the wheel started spinning
+   * @param timeNanos the time the turn was completed
+   */
+  void dispatchCycle(int cycle, long timeNanos) {
+    if (callback != null) {
+      if (coalesced) {
+        pendingCycles++;
+        post();
+      } else {
+        callback.onProgressUpdate(-1.0f);
+      }
+    }
+
+    if (listener != null) {
+      listener.onSpinCycleCompleted(cycle, timeNanos / WheelClock.NANOS_PER_MILLI);
+    }
+  }
+
+  /**
+   * The wheel started or stopped spinning
+   */
+  void dispatchModeChanged(boolean spinning, long timeNanos) {
+    if (listener != null) {
+      listener.onModeChanged(spinning, timeNanos / WheelClock.NANOS_PER_MILLI);
+    }
+  }
+
+  private void dispatch(float value) {
+    if (!coalesced) {
+      callback.onProgressUpdate(value);
+      return;
+    }
+
+    // NaN is never equal, so the first value is always delivered
+    if (value == deliveredValue && !posted) {
+      return;
+    }
+
+    pendingValue = value;
+    post();
+  }
+
+  private void post() {
+    if (!posted) {
+      posted = true;
+      long wait = lastDeliveryTime + minIntervalNanos - wheel.uptimeNanos();
+      if (wait > 0) {
+        wheel.postDelayed(this, wait / WheelClock.NANOS_PER_MILLI);
+      } else {
+        wheel.post(this);
+      }
+    }
+  }
+
+  /**
+   * Delivers the spin cycles and the latest coalesced value
+   */
+  @Override public void run() {
+    posted = false;
+
+    if (callback == null) {
+      return;
+    }
+
+    int cycles = pendingCycles;
+    pendingCycles = 0;
+    if (cycles > 0) {
+      deliveredValue = -1.0f;
+      lastDeliveryTime = wheel.uptimeNanos();
+      for (int i = 0; i < cycles; i++) {
+        callback.onProgressUpdate(-1.0f);
+      }
+    }
+
+    float value = pendingValue;
+    pendingValue = Float.NaN;
+    if (Float.isNaN(value) || value == deliveredValue) {
+      return;
+    }
+
+    deliveredValue = value;
+    lastDeliveryTime = wheel.uptimeNanos();
+    callback.onProgressUpdate(value);
+  }
+
+  /**
+   * Drops the pending delivery, if any
+   */
+  void cancel() {
+    pendingCycles = 0;
+    if (posted) {
+      posted = false;
+      wheel.removeCallbacks(this);
+    }
+  }
+}
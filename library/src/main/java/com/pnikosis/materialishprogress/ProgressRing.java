@@ -0,0 +1,122 @@
+package com.pnikosis.materialishprogress;
+
+import android.graphics.Paint;
+
+/**
+ * An extra determinate progress ring of a {@link ProgressWheel}, drawn inside its wheel.
+ *
+ * The rings share the layout, the frame loop and the draw pass of their wheel,
+ * but each one has its own color, progress and smoothing speed.
+ * Create them with {@link ProgressWheel#addRing(int)}.
+ */
+public final class ProgressRing {
+  private final ProgressWheel wheel;
+  final WheelAnimator animator = new WheelAnimator();
+  final Paint paint = new Paint();
+
+  ProgressRing(ProgressWheel wheel, int color) {
+    this.wheel = wheel;
+
+    paint.setColor(color);
+    paint.setAntiAlias(true);
+    paint.setStyle(Paint.Style.STROKE);
+  }
+
+  /**
+   * Set the progress to a specific value,
+   * the ring will smoothly animate until that value
+   *
+   * @param progress the progress between 0 and 1
+   */
+  public void setProgress(float progress) {
+    if (animator.setTargetProgress(ProgressWheel.clamp(progress) * 360.0f, wheel.uptimeNanos())) {
+      wheel.invalidateWheel();
+    }
+  }
+
+  /**
+   * Set the progress to a specific value,
+   * the ring will be set instantly to that value
+   *
+   * @param progress the progress between 0 and 1
+   */
+  public void setInstantProgress(float progress) {
+    if (animator.setInstantProgress(ProgressWheel.clamp(progress) * 360.0f, wheel.uptimeNanos())) {
+      wheel.invalidateWheel();
+    }
+  }
+
+  /**
+   * @return the current progress between 0.0 and 1.0
+   */
+  public float getProgress() {
+    return animator.getProgress() / 360.0f;
+  }
+
+  /**
+   * @return the color of the ring
+   */
+  public int getColor() {
+    return paint.getColor();
+  }
+
+  /**
+   * Sets the color of the ring
+   *
+   * @param color the ring color
+   */
+  public void setColor(int color) {
+    if (paint.getColor() != color) {
+      paint.setColor(color);
+      wheel.invalidateWheel();
+    }
+  }
+
+  /**
+   * @return the speed the ring moves to a new progress, in full turns per second
+   */
+  public float getSpeed() {
+    return animator.getSpinSpeed() / 360.0f;
+  }
+
+  /**
+   * Sets the speed the ring moves to a new progress
+   *
+   * @param speed the speed in full turns per second
+   */
+  public void setSpeed(float speed) {
+    animator.setSpinSpeed(speed * 360.0f);
+  }
+
+  /**
+   * Sets how the ring moves to a new progress, independently of the wheel
+   * and the other rings. A ring starts with the smoothing of its wheel.
+   *
+   * @param smoothing the smoothing, or null to move at the ring speed
+   * @see ProgressWheel#setProgressSmoothing(WheelSmoothing)
+   */
+  public void setProgressSmoothing(WheelSmoothing smoothing) {
+    animator.setSmoothing(smoothing);
+  }
+
+  /**
+   * @return the smoothing of the ring, null if it moves at the ring speed
+   */
+  public WheelSmoothing getProgressSmoothing() {
+    return animator.getSmoothing();
+  }
+
+  /**
+   * Sets if the progress increases linearly, like {@link ProgressWheel#setLinearProgress(boolean)}
+   *
+   * @param isLinear if the progress should increase linearly
+   */
+  public void setLinearProgress(boolean isLinear) {
+    if (animator.isLinearProgress() == isLinear) {
+      return;
+    }
+
+    animator.setLinearProgress(isLinear);
+    wheel.invalidateWheel();
+  }
+}
@@ -0,0 +1,90 @@
+package com.pnikosis.materialishprogress;
+
+import android.os.Handler;
+import android.os.Looper;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Takes progress updates for a {@link ProgressWheel} from any thread.
+ *
+ * Writing only stores the latest value, the wheel reads it once per frame
+ * and animates to it like {@link ProgressWheel#setProgress(float)} does.
+ * Only the first write after the wheel went idle posts a message to the UI
+ * thread to wake it up, so producers updating the progress thousands of
+ * times don't flood the UI thread with messages.
+ */
+public final class ProgressSink {
+  private static final int NO_VALUE = Float.floatToIntBits(Float.NaN);
+
+  private final ProgressWheel wheel;
+  private final Handler mainHandler = new Handler(Looper.getMainLooper());
+  // The latest progress written, as float bits
+  private final AtomicInteger latest = new AtomicInteger(NO_VALUE);
+  // True while the wheel is going to read the latest value, no need to wake it up
+  private final AtomicBoolean awake = new AtomicBoolean(false);
+  // The latest value applied to the wheel, only used on the UI thread
+  private int applied = NO_VALUE;
+
+  private final Runnable wakeUp = new Runnable() {
+    @Override public void run() {
+      apply();
+    }
+  };
+
+  ProgressSink(ProgressWheel wheel) {
+    this.wheel = wheel;
+  }
+
+  /**
+   * Sets the progress, can be called from any thread
+   *
+   * @param progress the progress between 0 and 1
+   */
+  public void setProgress(float progress) {
+    latest.set(Float.floatToIntBits(progress));
+
+    if (awake.compareAndSet(false, true)) {
+      mainHandler.post(wakeUp);
+    }
+  }
+
+  /**
+   * Called by the wheel on each frame, on the UI thread
+   */
+  void onFrame() {
+    apply();
+  }
+
+  /**
+   * Applies the latest value, while the wheel animates the next frame reads
+   * the following one. A value the wheel already had doesn't animate it,
+   * so there won't be a next frame either.
+   */
+  private void apply() {
+    consume();
+
+    while (!wheel.isAnimationRunning()) {
+      // The wheel is idle, the next write has to wake it up. If a value was
+      // written just before going idle the writer didn't post, so we take it now.
+      awake.set(false);
+      if (latest.get() == applied || !awake.compareAndSet(false, true)) {
+        return;
+      }
+      consume();
+    }
+  }
+
+  /**
+   * Applies the latest value to the wheel, if it's new
+   */
+  private void consume() {
+    int value = latest.get();
+    if (value == applied) {
+      return;
+    }
+
+    applied = value;
+    wheel.setProgress(Float.intBitsToFloat(value));
+  }
+}
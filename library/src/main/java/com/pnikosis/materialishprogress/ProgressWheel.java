@@ -2,20 +2,20 @@ package com.pnikosis.materialishprogress;
 
 import android.annotation.TargetApi;
 import android.content.Context;
-import android.content.res.TypedArray;
 import android.graphics.Canvas;
-import android.graphics.Paint;
-import android.graphics.Paint.Style;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Rect;
 import android.graphics.RectF;
+import android.graphics.SweepGradient;
+import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.os.Parcel;
 import android.os.Parcelable;
-import android.os.SystemClock;
-import android.provider.Settings;
 import android.util.AttributeSet;
-import android.util.DisplayMetrics;
-import android.util.TypedValue;
 import android.view.View;
+import android.view.ViewTreeObserver;
+import java.util.ArrayList;
 
 /**
  * A Material style progress wheel, compatible up to 2.2.
@@ -28,51 +28,97 @@ import android.view.View;
  */
 public class ProgressWheel extends View {
   private static final String TAG = ProgressWheel.class.getSimpleName();
-  private final int barLength = 16;
-  private final int barMaxLength = 270;
-  private final long pauseGrowingTime = 200;
+  private static final long NANOS_PER_MILLI = WheelClock.NANOS_PER_MILLI;
+  private static final long NANOS_PER_SECOND = 1000000000L;
+  // Frame rate used when the system is saving battery
+  private static final int POWER_SAVE_FRAME_RATE = 30;
+  // Frame times jitter a bit, a frame this close to the target interval is drawn
+  private static final long FRAME_INTERVAL_TOLERANCE = 2 * NANOS_PER_MILLI;
+  // The bar of a spinning wheel when it isn't animated
+  static final float STILL_SPIN_START = 0;
+  static final float STILL_SPIN_SWEEP = 135;
   /**
    * *********
    * DEFAULTS *
    * **********
    */
   //Sizes (with defaults in DP)
-  private int circleRadius = 28;
-  private int barWidth = 4;
-  private int rimWidth = 4;
-  private boolean fillRadius = false;
-  private double timeStartGrowing = 0;
-  private double barSpinCycleTime = 460;
-  private float barExtraLength = 0;
-  private boolean barGrowingFromFront = true;
-  private long pausedTimeWithoutGrowing = 0;
+  static final int DEFAULT_CIRCLE_RADIUS = 28;
+  static final int DEFAULT_BAR_WIDTH = 4;
+  static final int DEFAULT_RIM_WIDTH = 4;
   //Colors (with defaults)
-  private int barColor = 0xAA000000;
-  private int rimColor = 0x00FFFFFF;
-
-  //Paints
-  private Paint barPaint = new Paint();
-  private Paint rimPaint = new Paint();
+  static final int DEFAULT_BAR_COLOR = 0xAA000000;
+  static final int DEFAULT_RIM_COLOR = 0x00FFFFFF;
+
+  //Sizes, colors and paints, shared by the wheels looking the same
+  private WheelStyle style;
+  // Colors the bar cycles through, one per spin cycle, null for a single color
+  private int[] barColors;
+  // Colors of the sweep gradient of the bar, null for a plain color
+  private int[] barGradientColors;
+  // The gradient for the current bounds, only created again when they change
+  private SweepGradient barGradient;
+  private float barGradientX;
+  private float barGradientY;
 
   //Rectangles
-  private RectF circleBounds = new RectF();
+  private final RectF circleBounds = new RectF();
+  // Bounds of the ring being drawn, null until a ring is added
+  private RectF ringBounds;
+  // The area the wheel is drawn in, the only one invalidated when it changes
+  private final Rect dirtyBounds = new Rect();
+  // The last measure and what it depended on
+  private boolean measureCached = false;
+  private int lastWidthMeasureSpec;
+  private int lastHeightMeasureSpec;
+  private int lastMeasuredRadius;
+  private int lastPaddingX;
+  private int lastPaddingY;
+  private int lastMeasuredWidth;
+  private int lastMeasuredHeight;
+
+  // Extra progress rings, drawn inside the wheel, null until a ring is added
+  private ArrayList<ProgressRing> rings;
+
+  // The rim rendered in a bitmap, null if the rim is drawn on every frame
+  private RimCache rimCache;
+  // Draws the rim and bar as filled paths, null to draw them as arcs
+  private ArcPathRenderer pathRenderer;
 
   //Animation
-  //The amount of degrees per second
-  private float spinSpeed = 230.0f;
-  //private float spinSpeed = 120.0f;
-  // The last time the spinner was animated
-  private long lastTimeAnimated = 0;
-
-  private boolean linearProgress;
-
-  private float mProgress = 0.0f;
-  private float mTargetProgress = 0.0f;
-  private boolean isSpinning = false;
-
-  private ProgressCallback callback;
-
-  private boolean shouldAnimate;
+  private final WheelAnimator animator = new WheelAnimator();
+  // The spin cycles already reported to the callback
+  private int reportedCycles = 0;
+  // Display frame clock, null until attached or before Jelly Bean,
+  // in that case the wheel animates itself from onDraw
+  private WheelFrameCallback frameCallback;
+  private WheelClock clock = WheelClock.SYSTEM;
+  // Set while the animation is paused because the wheel can't be seen
+  private boolean animationSuspended = false;
+  // Null until the visibility is first checked, or the animation first suspended
+  private Rect visibleRect;
+  private ViewTreeObserver.OnPreDrawListener resumeListener;
+  // If the frames come from the ticker shared with other wheels
+  private boolean useSharedTicker = false;
+  // Maximum frames per second, 0 to animate at the display rate
+  private int frameRate = 0;
+  // Minimum time between drawn frames, taking the power save mode into account
+  private long frameIntervalNanos = 0;
+  private long lastDrawnFrameTime = 0;
+  // If the spin is animated by the render thread, when the system supports it
+  private boolean renderThreadSpin = false;
+  // The render thread spinner, null until the wheel spins in that mode
+  private RenderThreadSpinner renderThreadSpinner;
+
+  private final ProgressDispatcher dispatcher = new ProgressDispatcher(this, animator);
+  // Progress written from other threads, null until requested
+  private ProgressSink progressSink;
+
+  // The system settings limiting the animation, null in edit mode
+  private MotionPolicy motionPolicy;
+
+  // The last progress set, from 0 to 1, at full precision
+  private double exactProgress = 0;
 
   /**
    * The constructor for the ProgressWheel
@@ -80,9 +126,11 @@ public class ProgressWheel extends View {
   public ProgressWheel(Context context, AttributeSet attrs) {
     super(context, attrs);
 
-    parseAttributes(context.obtainStyledAttributes(attrs, R.styleable.ProgressWheel));
+    parseAttributes(WheelAttributes.obtain(context, attrs));
 
-    setAnimationEnabled();
+    if (!isInEditMode()) {
+      motionPolicy = MotionPolicy.getInstance(context);
+    }
   }
 
   /**
@@ -90,22 +138,12 @@ public class ProgressWheel extends View {
    */
   public ProgressWheel(Context context) {
     super(context);
-    setAnimationEnabled();
-  }
-
-  @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1) private void setAnimationEnabled() {
-    int currentApiVersion = android.os.Build.VERSION.SDK_INT;
+    style = WheelStyle.obtain(DEFAULT_CIRCLE_RADIUS, DEFAULT_BAR_WIDTH, DEFAULT_RIM_WIDTH, false,
+        DEFAULT_BAR_COLOR, DEFAULT_RIM_COLOR, false);
 
-    float animationValue;
-    if (currentApiVersion >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
-      animationValue = Settings.Global.getFloat(getContext().getContentResolver(),
-          Settings.Global.ANIMATOR_DURATION_SCALE, 1);
-    } else {
-      animationValue = Settings.System.getFloat(getContext().getContentResolver(),
-          Settings.System.ANIMATOR_DURATION_SCALE, 1);
+    if (!isInEditMode()) {
+      motionPolicy = MotionPolicy.getInstance(context);
     }
-
-    shouldAnimate = animationValue != 0;
   }
 
   //----------------------------------
@@ -113,44 +151,85 @@ public class ProgressWheel extends View {
   //----------------------------------
 
   @Override protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-    super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    int paddingX = getPaddingLeft() + getPaddingRight();
+    int paddingY = getPaddingTop() + getPaddingBottom();
+
+    // Measured again with the same specs and sizes, the size is the same
+    if (!measureCached
+        || widthMeasureSpec != lastWidthMeasureSpec
+        || heightMeasureSpec != lastHeightMeasureSpec
+        || style.circleRadius != lastMeasuredRadius
+        || paddingX != lastPaddingX
+        || paddingY != lastPaddingY) {
+      lastWidthMeasureSpec = widthMeasureSpec;
+      lastHeightMeasureSpec = heightMeasureSpec;
+      lastMeasuredRadius = style.circleRadius;
+      lastPaddingX = paddingX;
+      lastPaddingY = paddingY;
+      lastMeasuredWidth = measureWidth(widthMeasureSpec, style.circleRadius + paddingX);
+      lastMeasuredHeight =
+          measureHeight(widthMeasureSpec, heightMeasureSpec, style.circleRadius + paddingY);
+      measureCached = true;
+    }
 
-    int viewWidth = circleRadius + this.getPaddingLeft() + this.getPaddingRight();
-    int viewHeight = circleRadius + this.getPaddingTop() + this.getPaddingBottom();
+    setMeasuredDimension(lastMeasuredWidth, lastMeasuredHeight);
+  }
 
+  private static int measureWidth(int widthMeasureSpec, int viewWidth) {
     int widthMode = MeasureSpec.getMode(widthMeasureSpec);
     int widthSize = MeasureSpec.getSize(widthMeasureSpec);
-    int heightMode = MeasureSpec.getMode(heightMeasureSpec);
-    int heightSize = MeasureSpec.getSize(heightMeasureSpec);
-
-    int width;
-    int height;
 
-    //Measure Width
     if (widthMode == MeasureSpec.EXACTLY) {
       //Must be this size
-      width = widthSize;
+      return widthSize;
     } else if (widthMode == MeasureSpec.AT_MOST) {
       //Can't be bigger than...
-      width = Math.min(viewWidth, widthSize);
+      return Math.min(viewWidth, widthSize);
     } else {
       //Be whatever you want
-      width = viewWidth;
+      return viewWidth;
     }
+  }
+
+  private static int measureHeight(int widthMeasureSpec, int heightMeasureSpec, int viewHeight) {
+    int widthMode = MeasureSpec.getMode(widthMeasureSpec);
+    int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+    int heightSize = MeasureSpec.getSize(heightMeasureSpec);
 
-    //Measure Height
     if (heightMode == MeasureSpec.EXACTLY || widthMode == MeasureSpec.EXACTLY) {
       //Must be this size
-      height = heightSize;
+      return heightSize;
     } else if (heightMode == MeasureSpec.AT_MOST) {
       //Can't be bigger than...
-      height = Math.min(viewHeight, heightSize);
+      return Math.min(viewHeight, heightSize);
     } else {
       //Be whatever you want
-      height = viewHeight;
+      return viewHeight;
     }
+  }
 
-    setMeasuredDimension(width, height);
+  /**
+   * Sets up the bounds again after the radius or a width changed, only asking
+   * for a layout if the last measure would give another size with the new radius
+   */
+  private void updateGeometry() {
+    if (!measureCached) {
+      requestLayout();
+    } else {
+      int width = measureWidth(lastWidthMeasureSpec, style.circleRadius + lastPaddingX);
+      int height = measureHeight(lastWidthMeasureSpec, lastHeightMeasureSpec,
+          style.circleRadius + lastPaddingY);
+      if (width != lastMeasuredWidth || height != lastMeasuredHeight) {
+        requestLayout();
+      }
+    }
+
+    // The parent could keep the size, onSizeChanged sets them up again if not
+    if (getWidth() > 0 && getHeight() > 0) {
+      setupBounds(getWidth(), getHeight());
+    }
+    invalidateRim();
+    invalidate();
   }
 
   /**
@@ -162,24 +241,19 @@ public class ProgressWheel extends View {
     super.onSizeChanged(w, h, oldw, oldh);
 
     setupBounds(w, h);
-    setupPaints();
+    invalidateRim();
     invalidate();
   }
 
   /**
-   * Set the properties of the paints we're using to
-   * draw the progress wheel
+   * Gets the style of the wheel ready to be changed, the shared
+   * style is copied on the first change, and reused afterwards
    */
-  private void setupPaints() {
-    barPaint.setColor(barColor);
-    barPaint.setAntiAlias(true);
-    barPaint.setStyle(Style.STROKE);
-    barPaint.setStrokeWidth(barWidth);
-
-    rimPaint.setColor(rimColor);
-    rimPaint.setAntiAlias(true);
-    rimPaint.setStyle(Style.STROKE);
-    rimPaint.setStrokeWidth(rimWidth);
+  private WheelStyle editStyle() {
+    if (style.isShared()) {
+      style = style.copy();
+    }
+    return style;
   }
 
   /**
@@ -190,74 +264,200 @@ public class ProgressWheel extends View {
     int paddingBottom = getPaddingBottom();
     int paddingLeft = getPaddingLeft();
     int paddingRight = getPaddingRight();
+    int barWidth = style.barWidth;
 
-    if (!fillRadius) {
+    if (!style.fillRadius) {
       // Width should equal to Height, find the min value to setup the circle
       int minValue = Math.min(layout_width - paddingLeft - paddingRight,
           layout_height - paddingBottom - paddingTop);
 
-      int circleDiameter = Math.min(minValue, circleRadius * 2 - barWidth * 2);
+      int circleDiameter = Math.min(minValue, style.circleRadius * 2 - barWidth * 2);
 
       // Calc the Offset if needed for centering the wheel in the available space
       int xOffset = (layout_width - paddingLeft - paddingRight - circleDiameter) / 2 + paddingLeft;
       int yOffset = (layout_height - paddingTop - paddingBottom - circleDiameter) / 2 + paddingTop;
 
-      circleBounds =
-          new RectF(xOffset + barWidth, yOffset + barWidth, xOffset + circleDiameter - barWidth,
-              yOffset + circleDiameter - barWidth);
+      circleBounds.set(xOffset + barWidth, yOffset + barWidth, xOffset + circleDiameter - barWidth,
+          yOffset + circleDiameter - barWidth);
     } else {
-      circleBounds = new RectF(paddingLeft + barWidth, paddingTop + barWidth,
+      circleBounds.set(paddingLeft + barWidth, paddingTop + barWidth,
           layout_width - paddingRight - barWidth, layout_height - paddingBottom - barWidth);
     }
+
+    // The outer edge of the bar moves the most
+    float outerRadius = Math.max(circleBounds.width(), circleBounds.height()) / 2 + barWidth / 2f;
+    dispatcher.setPixelStep(outerRadius > 0 ? (float) (180 / (Math.PI * outerRadius)) : 0);
+
+    updateDirtyBounds();
+    updateBarGradient();
   }
 
   /**
-   * Parse the attributes passed to the view from the XML
-   *
-   * @param a the attributes to parse
+   * Sets the area the wheel is drawn in: the circle plus half of the widest stroke,
+   * and a pixel for the anti-aliasing. The rings are inside the circle.
+   */
+  private void updateDirtyBounds() {
+    if (circleBounds.isEmpty()) {
+      dirtyBounds.setEmpty();
+      return;
+    }
+
+    float stroke = Math.max(style.barWidth, style.rimWidth) / 2f + 1;
+    dirtyBounds.set((int) Math.floor(circleBounds.left - stroke),
+        (int) Math.floor(circleBounds.top - stroke), (int) Math.ceil(circleBounds.right + stroke),
+        (int) Math.ceil(circleBounds.bottom + stroke));
+  }
+
+  /**
+   * Invalidates only the area the wheel is drawn in, not the whole view,
+   * so a software rendered wheel with padding or fillRadius redraws fewer pixels
+   */
+  void invalidateWheel() {
+    // The render thread spinner is drawn a bit outside the circle
+    if (dirtyBounds.isEmpty() || isRenderThreadSpinActive()) {
+      invalidate();
+    } else {
+      invalidate(dirtyBounds);
+    }
+  }
+
+  /**
+   * Creates the gradient of the bar if the center of the wheel moved, and sets it to the paint
    */
-  private void parseAttributes(TypedArray a) {
-    // We transform the default values from DIP to pixels
-    DisplayMetrics metrics = getContext().getResources().getDisplayMetrics();
-    barWidth = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, barWidth, metrics);
-    rimWidth = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, rimWidth, metrics);
-    circleRadius =
-        (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, circleRadius, metrics);
+  private void updateBarGradient() {
+    if (barGradientColors == null) {
+      return;
+    }
 
-    circleRadius =
-        (int) a.getDimension(R.styleable.ProgressWheel_matProg_circleRadius, circleRadius);
+    float centerX = circleBounds.centerX();
+    float centerY = circleBounds.centerY();
+    if (barGradient == null || barGradientX != centerX || barGradientY != centerY) {
+      barGradientX = centerX;
+      barGradientY = centerY;
+      barGradient = new SweepGradient(centerX, centerY, barGradientColors, null);
+      // The gradient starts at the top, like the wheel
+      Matrix matrix = new Matrix();
+      matrix.setRotate(-90, centerX, centerY);
+      barGradient.setLocalMatrix(matrix);
+    }
 
-    fillRadius = a.getBoolean(R.styleable.ProgressWheel_matProg_fillRadius, false);
+    if (style.barPaint.getShader() != barGradient) {
+      editStyle().setBarShader(barGradient);
+    }
+  }
 
-    barWidth = (int) a.getDimension(R.styleable.ProgressWheel_matProg_barWidth, barWidth);
+  /**
+   * Apply the attributes passed to the view from the XML
+   *
+   * @param a the parsed attributes, maybe shared with other wheels
+   */
+  private void parseAttributes(WheelAttributes a) {
+    style = a.style;
 
-    rimWidth = (int) a.getDimension(R.styleable.ProgressWheel_matProg_rimWidth, rimWidth);
+    animator.setSpinSpeed(a.spinSpeed);
 
-    float baseSpinSpeed =
-        a.getFloat(R.styleable.ProgressWheel_matProg_spinSpeed, spinSpeed / 360.0f);
-    spinSpeed = baseSpinSpeed * 360;
+    frameRate = a.frameRate;
 
-    barSpinCycleTime =
-        a.getInt(R.styleable.ProgressWheel_matProg_barSpinCycleTime, (int) barSpinCycleTime);
+    animator.setBarSpinCycleTime(a.barSpinCycleTime);
 
-    barColor = a.getColor(R.styleable.ProgressWheel_matProg_barColor, barColor);
+    animator.setLinearProgress(a.linearProgress);
 
-    rimColor = a.getColor(R.styleable.ProgressWheel_matProg_rimColor, rimColor);
+    useSharedTicker = a.sharedTicker;
 
-    linearProgress = a.getBoolean(R.styleable.ProgressWheel_matProg_linearProgress, false);
+    renderThreadSpin = a.renderThreadSpin;
 
-    if (a.getBoolean(R.styleable.ProgressWheel_matProg_progressIndeterminate, false)) {
-      spin();
+    if (a.cacheRim) {
+      rimCache = new RimCache();
     }
 
-    // Recycle
-    a.recycle();
+    if (a.pathRendering) {
+      pathRenderer = new ArcPathRenderer();
+    }
+
+    if (a.progressIndeterminate) {
+      spin();
+    }
   }
 
+  /**
+   * Sets a callback, called each time the progress changes,
+   * right from the frame that changed it
+   *
+   * @param progressCallback the callback, null to remove it
+   */
   public void setCallback(ProgressCallback progressCallback) {
-    callback = progressCallback;
+    dispatcher.setCallback(progressCallback);
 
-    if (!isSpinning) {
+    if (!animator.isSpinning()) {
+      runCallback();
+    }
+  }
+
+  /**
+   * Sets a callback getting the progress without rounding, called right from the frame
+   * that changed it, but only when the bar moved at least a pixel, or reached the
+   * progress set, which is then delivered at full precision.
+   * It isn't called while spinning.
+   *
+   * @param preciseCallback the callback, null to remove it
+   */
+  public void setPreciseCallback(PreciseProgressCallback preciseCallback) {
+    dispatcher.setPreciseCallback(preciseCallback);
+
+    if (preciseCallback != null && !animator.isSpinning()) {
+      runCallback();
+    }
+  }
+
+  /**
+   * Sets a listener for the progress events: reaching the target progress,
+   * crossing the thresholds added with {@link #addProgressThreshold(float)},
+   * completing a spin cycle and changing between spinning and determinate modes.
+   *
+   * @param listener the listener, null to remove it
+   */
+  public void setProgressListener(ProgressListener listener) {
+    dispatcher.setListener(listener);
+  }
+
+  /**
+   * Adds a progress threshold, the listener is notified each time the progress crosses it
+   *
+   * @param threshold the threshold, between 0 and 1
+   */
+  public void addProgressThreshold(float threshold) {
+    dispatcher.addThreshold(threshold * 360.0f);
+  }
+
+  /**
+   * Removes a threshold added with {@link #addProgressThreshold(float)}
+   *
+   * @param threshold the threshold, between 0 and 1
+   */
+  public void removeProgressThreshold(float threshold) {
+    dispatcher.removeThreshold(threshold * 360.0f);
+  }
+
+  /**
+   * Removes all the progress thresholds
+   */
+  public void clearProgressThresholds() {
+    dispatcher.clearThresholds();
+  }
+
+  /**
+   * Sets a callback that is only called when the progress, rounded to
+   * two decimals, changes. The calls are posted after the frame, and
+   * done at most once per interval with the latest value.
+   * Use it when the callback is slow, like when it updates a text.
+   *
+   * @param progressCallback the callback, null to remove it
+   * @param minIntervalMillis the minimum time between two calls, 0 for no limit
+   */
+  public void setCoalescedCallback(ProgressCallback progressCallback, long minIntervalMillis) {
+    dispatcher.setCallback(progressCallback, true, minIntervalMillis * NANOS_PER_MILLI);
+
+    if (!animator.isSpinning()) {
       runCallback();
     }
   }
@@ -269,166 +469,481 @@ public class ProgressWheel extends View {
   protected void onDraw(Canvas canvas) {
     super.onDraw(canvas);
 
-    canvas.drawArc(circleBounds, 360, 360, false, rimPaint);
+    // The default rim is transparent, there's nothing to draw then
+    if (Color.alpha(style.rimColor) != 0) {
+      if (rimCache != null) {
+        rimCache.draw(canvas, circleBounds, style.rimPaint);
+      } else if (pathRenderer != null) {
+        pathRenderer.drawRim(canvas, circleBounds, style.rimPaint);
+      } else {
+        canvas.drawArc(circleBounds, 360, 360, false, style.rimPaint);
+      }
+    }
+
+    boolean spinOnRenderThread = isRenderThreadSpinActive();
+    if (!spinOnRenderThread && renderThreadSpinner != null) {
+      renderThreadSpinner.stop();
+    }
 
     boolean mustInvalidate = false;
 
-    if (!shouldAnimate) {
+    if (frameCallback == null || !isMotionEnabled()) {
+      // The drawing time is the same for every draw pass in a frame,
+      // so drawing twice doesn't move the animation twice.
+      // Without animations the changes are applied here, when drawn.
+      mustInvalidate = advanceAnimation(clock.drawingTimeNanos(this));
+    } else if (isAnimationRunning()) {
+      // The frame clock animates the wheel, we just ask for the next frame
+      if (isAnimationVisible()) {
+        postFrame();
+      } else {
+        suspendAnimation();
+      }
+    }
+
+    float from = animator.getArcStart();
+    float length = animator.getArcSweep();
+
+    if (isInEditMode()) {
+      if (animator.isSpinning()) {
+        from = STILL_SPIN_START;
+        length = STILL_SPIN_SWEEP;
+      } else {
+        length = 360;
+      }
+    } else if (animator.isSpinning() && !isMotionEnabled()) {
+      // Without animations the spinning bar stands still
+      from = STILL_SPIN_START;
+      length = STILL_SPIN_SWEEP;
+    }
+
+    if (spinOnRenderThread) {
+      if (renderThreadSpinner == null) {
+        renderThreadSpinner = new RenderThreadSpinner(this);
+      }
+      renderThreadSpinner.draw(canvas, circleBounds, style.barColor);
+    } else if (pathRenderer != null) {
+      pathRenderer.drawBar(canvas, circleBounds, from, length, style.barPaint);
+    } else {
+      canvas.drawArc(circleBounds, from, length, false, style.barPaint);
+    }
+
+    for (int i = 0, size = getRingCount(); i < size; i++) {
+      // Each ring is inside the previous one, with a gap as wide as the bar
+      float inset = (i + 1) * style.barWidth * 2;
+      ringBounds.set(circleBounds);
+      ringBounds.inset(inset, inset);
+      if (ringBounds.width() <= 0 || ringBounds.height() <= 0) {
+        break;
+      }
+
+      WheelAnimator ringAnimator = rings.get(i).animator;
+      canvas.drawArc(ringBounds, ringAnimator.getArcStart(), ringAnimator.getArcSweep(), false,
+          rings.get(i).paint);
+    }
+
+    if (mustInvalidate) {
+      if (isAnimationVisible()) {
+        if (frameIntervalNanos > 0) {
+          postInvalidateDelayed(frameIntervalNanos / NANOS_PER_MILLI, dirtyBounds.left,
+              dirtyBounds.top, dirtyBounds.right, dirtyBounds.bottom);
+        } else {
+          invalidateWheel();
+        }
+      } else {
+        suspendAnimation();
+      }
+    }
+  }
+
+  /**
+   * Checks if the wheel can actually be seen, a wheel that is hidden,
+   * transparent or clipped out by its parents isn't animated
+   */
+  @TargetApi(Build.VERSION_CODES.HONEYCOMB) private boolean isAnimationVisible() {
+    if (isInEditMode()) {
+      return true;
+    }
+
+    if (getWindowVisibility() != VISIBLE || !isShown()) {
+      return false;
+    }
+
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB && getAlpha() == 0) {
+      return false;
+    }
+
+    // False if fully clipped, like when it's scrolled out of a list
+    if (visibleRect == null) {
+      visibleRect = new Rect();
+    }
+    return getGlobalVisibleRect(visibleRect);
+  }
+
+  /**
+   * Pauses the animation while the wheel can't be seen. Changing the alpha
+   * or scrolling the wheel back in doesn't necessarily draw it again,
+   * so we check on every frame of the window until it can be seen.
+   */
+  private void suspendAnimation() {
+    if (animationSuspended || getWindowToken() == null) {
       return;
     }
 
-    if (isSpinning) {
-      //Draw the spinning bar
-      mustInvalidate = true;
+    animationSuspended = true;
+    if (resumeListener == null) {
+      resumeListener = new ViewTreeObserver.OnPreDrawListener() {
+        @Override public boolean onPreDraw() {
+          if (isAnimationVisible()) {
+            resumeAnimation();
+          }
+          return true;
+        }
+      };
+    }
+    getViewTreeObserver().addOnPreDrawListener(resumeListener);
+  }
 
-      long deltaTime = (SystemClock.uptimeMillis() - lastTimeAnimated);
-      float deltaNormalized = deltaTime * spinSpeed / 1000.0f;
+  /**
+   * Resumes the animation where it was paused
+   */
+  private void resumeAnimation() {
+    if (!animationSuspended) {
+      return;
+    }
 
-      updateBarLength(deltaTime);
+    animationSuspended = false;
+    getViewTreeObserver().removeOnPreDrawListener(resumeListener);
+    resetFrameTime();
+    invalidateWheel();
+  }
 
-      mProgress += deltaNormalized;
-      if (mProgress > 360) {
-        mProgress -= 360f;
+  /**
+   * Moves the animation to the given frame time, and notifies the callback and listener
+   *
+   * @return true if the wheel needs to be animated again
+   */
+  private boolean advanceAnimation(long frameTimeNanos) {
+    float oldProgress = animator.getProgress();
+
+    // The render thread animates the spin by itself
+    boolean mustInvalidate = !isRenderThreadSpinActive() && update(animator, frameTimeNanos);
+
+    for (int i = 0, size = getRingCount(); i < size; i++) {
+      mustInvalidate |= update(rings.get(i).animator, frameTimeNanos);
+    }
 
+    if (animator.isSpinning()) {
+      while (reportedCycles != animator.getCompletedCycles()) {
+        reportedCycles++;
+        updateCycleColor();
         // A full turn has been completed
         // we run the callback with -1 in case we want to
         // do something, like changing the color
-        runCallback(-1.0f);
+        dispatcher.dispatchCycle(reportedCycles, frameTimeNanos);
       }
-      lastTimeAnimated = SystemClock.uptimeMillis();
+    } else if (oldProgress != animator.getProgress()) {
+      dispatcher.dispatchProgress(oldProgress, animator.getProgress(),
+          animator.getTargetProgress(), frameTimeNanos);
+    }
 
-      float from = mProgress - 90;
-      float length = barLength + barExtraLength;
+    if (progressSink != null) {
+      // Picks the latest progress written from other threads, if any
+      progressSink.onFrame();
+      mustInvalidate |= isAnimationRunning();
+    }
 
-      if (isInEditMode()) {
-        from = 0;
-        length = 135;
-      }
+    return mustInvalidate;
+  }
 
-      canvas.drawArc(circleBounds, from, length, false, barPaint);
+  /**
+   * Moves an animator to the frame time, or straight to its target progress
+   * if animations are off, a spinning one stays where it is then
+   *
+   * @return true if it needs to be animated again
+   */
+  private boolean update(WheelAnimator wheelAnimator, long frameTimeNanos) {
+    if (isMotionEnabled()) {
+      return wheelAnimator.update(frameTimeNanos);
+    }
+
+    if (!wheelAnimator.isSpinning()) {
+      wheelAnimator.setInstantProgress(wheelAnimator.getTargetProgress(), frameTimeNanos);
+    }
+    return false;
+  }
+
+  /**
+   * @return false if the user turned animations off in the system settings
+   */
+  private boolean isMotionEnabled() {
+    return motionPolicy == null || motionPolicy.isAnimationEnabled();
+  }
+
+  /**
+   * Called by the motion policy when the settings change, while attached
+   */
+  void onMotionPolicyChanged() {
+    updateFrameInterval();
+    if (isMotionEnabled()) {
+      // The wheel starts moving from where it stood
+      resetFrameTime();
     } else {
-      float oldProgress = mProgress;
+      cancelFrame();
+    }
+    invalidate();
+  }
+
+  /**
+   * Restarts the frame time base of the wheel and its rings,
+   * so the time the animation was paused isn't animated
+   */
+  private void resetFrameTime() {
+    long now = uptimeNanos();
+    animator.resetFrameTime(now);
+    for (int i = 0, size = getRingCount(); i < size; i++) {
+      rings.get(i).animator.resetFrameTime(now);
+    }
+  }
 
-      if (mProgress != mTargetProgress) {
-        //We smoothly increase the progress bar
-        mustInvalidate = true;
+  /**
+   * @return true if the wheel or any of its rings is animated by the UI thread
+   */
+  boolean isAnimationRunning() {
+    // Without animations every change is drawn right away
+    if (!isMotionEnabled()) {
+      return false;
+    }
 
-        float deltaTime = (float) (SystemClock.uptimeMillis() - lastTimeAnimated) / 1000;
-        float deltaNormalized = deltaTime * spinSpeed;
+    if (animator.isRunning() && !isRenderThreadSpinActive()) {
+      return true;
+    }
 
-        mProgress = Math.min(mProgress + deltaNormalized, mTargetProgress);
-        lastTimeAnimated = SystemClock.uptimeMillis();
+    for (int i = 0, size = getRingCount(); i < size; i++) {
+      if (rings.get(i).animator.isRunning()) {
+        return true;
       }
+    }
+    return false;
+  }
 
-      if (oldProgress != mProgress) {
-        runCallback();
-      }
+  /**
+   * Called by the frame clock on every frame while the wheel is animating
+   *
+   * @param frameTimeNanos the time the frame started to render
+   */
+  void onAnimationFrame(long frameTimeNanos) {
+    if (frameIntervalNanos > 0
+        && frameTimeNanos - lastDrawnFrameTime < frameIntervalNanos - FRAME_INTERVAL_TOLERANCE) {
+      // Skip this frame, the animation is time based so
+      // the next drawn frame will be in the right position
+      postFrame();
+      return;
+    }
 
-      float offset = 0.0f;
-      float progress = mProgress;
-      if (!linearProgress) {
-        float factor = 2.0f;
-        offset = (float) (1.0f - Math.pow(1.0f - mProgress / 360.0f, 2.0f * factor)) * 360.0f;
-        progress = (float) (1.0f - Math.pow(1.0f - mProgress / 360.0f, factor)) * 360.0f;
-      }
+    lastDrawnFrameTime = frameTimeNanos;
+    advanceAnimation(frameTimeNanos);
+    invalidateWheel();
+  }
 
-      if (isInEditMode()) {
-        progress = 360;
-      }
+  @Override protected void onAttachedToWindow() {
+    super.onAttachedToWindow();
 
-      canvas.drawArc(circleBounds, offset - 90, progress, false, barPaint);
+    if (frameCallback == null
+        && clock == WheelClock.SYSTEM
+        && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN
+        && !isInEditMode()) {
+      frameCallback = new WheelFrameCallback(this);
     }
+    if (motionPolicy != null) {
+      motionPolicy.addWheel(this);
+    }
+    updateFrameInterval();
+    resetFrameTime();
+  }
 
-    if (mustInvalidate) {
-      invalidate();
+  @Override protected void onDetachedFromWindow() {
+    cancelFrame();
+    if (motionPolicy != null) {
+      motionPolicy.removeWheel(this);
+    }
+    if (renderThreadSpinner != null) {
+      renderThreadSpinner.stop();
+    }
+    if (animationSuspended) {
+      animationSuspended = false;
+      getViewTreeObserver().removeOnPreDrawListener(resumeListener);
     }
+    // Releases the bitmap while detached, it's rendered again when drawn
+    if (rimCache != null) {
+      rimCache.release();
+    }
+
+    super.onDetachedFromWindow();
   }
 
   @Override protected void onVisibilityChanged(View changedView, int visibility) {
     super.onVisibilityChanged(changedView, visibility);
 
     if (visibility == VISIBLE) {
-      lastTimeAnimated = SystemClock.uptimeMillis();
+      resetFrameTime();
+    } else {
+      cancelFrame();
     }
   }
 
-  private void updateBarLength(long deltaTimeInMilliSeconds) {
-    if (pausedTimeWithoutGrowing >= pauseGrowingTime) {
-      timeStartGrowing += deltaTimeInMilliSeconds;
+  @Override protected void onWindowVisibilityChanged(int visibility) {
+    super.onWindowVisibilityChanged(visibility);
 
-      if (timeStartGrowing > barSpinCycleTime) {
-        // We completed a size change cycle
-        // (growing or shrinking)
-        timeStartGrowing -= barSpinCycleTime;
-        //if(barGrowingFromFront) {
-        pausedTimeWithoutGrowing = 0;
-        //}
-        barGrowingFromFront = !barGrowingFromFront;
-      }
+    if (visibility == VISIBLE) {
+      resetFrameTime();
+    } else {
+      cancelFrame();
+    }
+  }
+
+  /**
+   * Works out the time between frames from the frame rate,
+   * lowering it when the system is saving battery
+   */
+  private void updateFrameInterval() {
+    int rate = frameRate;
+    boolean powerSaveMode = motionPolicy != null && motionPolicy.isPowerSaveMode();
+    if (powerSaveMode && (rate == 0 || rate > POWER_SAVE_FRAME_RATE)) {
+      rate = POWER_SAVE_FRAME_RATE;
+    }
 
-      float distance =
-          (float) Math.cos((timeStartGrowing / barSpinCycleTime + 1) * Math.PI) / 2 + 0.5f;
-      float destLength = (barMaxLength - barLength);
+    frameIntervalNanos = rate > 0 ? NANOS_PER_SECOND / rate : 0;
+  }
 
-      if (barGrowingFromFront) {
-        barExtraLength = distance * destLength;
-      } else {
-        float newLength = destLength * (1 - distance);
-        mProgress += (barExtraLength - newLength);
-        barExtraLength = newLength;
-      }
+  /**
+   * @return true if the wheel is spinning, animated by the render thread
+   */
+  private boolean isRenderThreadSpinActive() {
+    return renderThreadSpin
+        && animator.isSpinning()
+        && isMotionEnabled()
+        && clock == WheelClock.SYSTEM
+        && RenderThreadSpinner.isSupported()
+        && !isInEditMode();
+  }
+
+  @Override protected boolean verifyDrawable(Drawable who) {
+    return super.verifyDrawable(who)
+        || (renderThreadSpinner != null && renderThreadSpinner.isDrawable(who));
+  }
+
+  private void invalidateRim() {
+    if (rimCache != null) {
+      rimCache.invalidate();
+    }
+  }
+
+  private void postFrame() {
+    if (useSharedTicker) {
+      SharedWheelTicker.getInstance().post(this);
+    } else {
+      frameCallback.post();
+    }
+  }
+
+  private void cancelFrame() {
+    if (frameCallback == null) {
+      return;
+    }
+
+    if (useSharedTicker) {
+      SharedWheelTicker.getInstance().cancel(this);
     } else {
-      pausedTimeWithoutGrowing += deltaTimeInMilliSeconds;
+      frameCallback.cancel();
     }
   }
 
+  long uptimeNanos() {
+    return clock.nanoTime();
+  }
+
+  /**
+   * @return the style of the wheel, maybe shared with other wheels
+   */
+  WheelStyle getStyle() {
+    return style;
+  }
+
+  /**
+   * Replaces the clock of the wheel, for tests driving the animation frame by frame.
+   * With a clock other than the system one the frame clock isn't used,
+   * the animation is advanced to the clock time on each draw.
+   */
+  void setClock(WheelClock clock) {
+    cancelFrame();
+    frameCallback = null;
+    this.clock = clock;
+    resetFrameTime();
+  }
+
   /**
    * Check if the wheel is currently spinning
    */
 
   public boolean isSpinning() {
-    return isSpinning;
+    return animator.isSpinning();
   }
 
   /**
    * Reset the count (in increment mode)
    */
   public void resetCount() {
-    mProgress = 0.0f;
-    mTargetProgress = 0.0f;
-    invalidate();
+    animator.resetCount();
+    exactProgress = 0;
+    dispatcher.setExactTarget(0, 0);
+    invalidateWheel();
   }
 
   /**
    * Turn off spin mode
    */
   public void stopSpinning() {
-    isSpinning = false;
-    mProgress = 0.0f;
-    mTargetProgress = 0.0f;
-    invalidate();
+    boolean wasSpinning = animator.isSpinning();
+    animator.stopSpinning();
+    exactProgress = 0;
+    dispatcher.setExactTarget(0, 0);
+    if (wasSpinning) {
+      dispatcher.dispatchModeChanged(false, uptimeNanos());
+    }
+    invalidateWheel();
   }
 
   /**
    * Puts the view on spin mode
    */
   public void spin() {
-    lastTimeAnimated = SystemClock.uptimeMillis();
-    isSpinning = true;
-    invalidate();
+    boolean wasSpinning = animator.isSpinning();
+    animator.spin(uptimeNanos());
+    if (!wasSpinning) {
+      reportedCycles = 0;
+      updateCycleColor();
+      dispatcher.dispatchModeChanged(true, uptimeNanos());
+    }
+    invalidateWheel();
   }
 
-  private void runCallback(float value) {
-    if (callback != null) {
-      callback.onProgressUpdate(value);
+  /**
+   * Sets the color of the current spin cycle, when the bar cycles through colors
+   */
+  private void updateCycleColor() {
+    if (barColors == null) {
+      return;
+    }
+
+    int color = barColors[reportedCycles % barColors.length];
+    if (style.barColor != color) {
+      editStyle().setBarColor(color);
     }
   }
 
   private void runCallback() {
-    if (callback != null) {
-      float normalizedProgress = (float) Math.round(mProgress * 100 / 360.0f) / 100;
-      callback.onProgressUpdate(normalizedProgress);
-    }
+    dispatcher.dispatchProgress(animator.getProgress());
   }
 
   /**
@@ -438,25 +953,40 @@ public class ProgressWheel extends View {
    * @param progress the progress between 0 and 1
    */
   public void setInstantProgress(float progress) {
-    if (isSpinning) {
-      mProgress = 0.0f;
-      isSpinning = false;
-    }
+    setInstantProgressFraction(clamp(progress));
+  }
 
-    if (progress > 1.0f) {
-      progress -= 1.0f;
-    } else if (progress < 0) {
-      progress = 0;
-    }
+  /**
+   * Set the progress to a specific value, as an amount out of a total,
+   * the bar will be set instantly to that value
+   *
+   * @param current the amount done, like the bytes downloaded, clamped between 0 and total
+   * @param total the total amount, more than 0
+   */
+  public void setInstantProgress(long current, long total) {
+    setInstantProgressFraction(fraction(current, total));
+  }
 
-    if (progress == mTargetProgress) {
-      return;
+  private void setInstantProgressFraction(double fraction) {
+    boolean wasSpinning = animator.isSpinning();
+    float oldProgress = wasSpinning ? 0.0f : animator.getProgress();
+
+    float degrees = (float) (fraction * 360.0);
+    exactProgress = fraction;
+    dispatcher.setExactTarget(fraction, degrees);
+
+    long now = uptimeNanos();
+    boolean changed = animator.setInstantProgress(degrees, now);
+
+    if (wasSpinning) {
+      dispatcher.dispatchModeChanged(false, now);
     }
 
-    mTargetProgress = Math.min(progress * 360.0f, 360.0f);
-    mProgress = mTargetProgress;
-    lastTimeAnimated = SystemClock.uptimeMillis();
-    invalidate();
+    if (changed) {
+      dispatcher.dispatchProgress(oldProgress, animator.getProgress(),
+          animator.getTargetProgress(), now);
+      invalidateWheel();
+    }
   }
 
   // Great way to save a view's state http://stackoverflow.com/a/7089687/1991053
@@ -466,17 +996,19 @@ public class ProgressWheel extends View {
     WheelSavedState ss = new WheelSavedState(superState);
 
     // We save everything that can be changed at runtime
-    ss.mProgress = this.mProgress;
-    ss.mTargetProgress = this.mTargetProgress;
-    ss.isSpinning = this.isSpinning;
-    ss.spinSpeed = this.spinSpeed;
-    ss.barWidth = this.barWidth;
-    ss.barColor = this.barColor;
-    ss.rimWidth = this.rimWidth;
-    ss.rimColor = this.rimColor;
-    ss.circleRadius = this.circleRadius;
-    ss.linearProgress = this.linearProgress;
-    ss.fillRadius = this.fillRadius;
+    ss.mProgress = animator.getProgress();
+    ss.mTargetProgress = animator.getTargetProgress();
+    ss.exactProgress = exactProgress;
+    ss.isSpinning = animator.isSpinning();
+    ss.spinSpeed = animator.getSpinSpeed();
+    ss.barWidth = style.barWidth;
+    ss.barColor = style.barColor;
+    ss.rimWidth = style.rimWidth;
+    ss.rimColor = style.rimColor;
+    ss.circleRadius = style.circleRadius;
+    ss.linearProgress = animator.isLinearProgress();
+    ss.fillRadius = style.fillRadius;
+    ss.roundCaps = style.roundCaps;
 
     return ss;
   }
@@ -490,19 +1022,14 @@ public class ProgressWheel extends View {
     WheelSavedState ss = (WheelSavedState) state;
     super.onRestoreInstanceState(ss.getSuperState());
 
-    this.mProgress = ss.mProgress;
-    this.mTargetProgress = ss.mTargetProgress;
-    this.isSpinning = ss.isSpinning;
-    this.spinSpeed = ss.spinSpeed;
-    this.barWidth = ss.barWidth;
-    this.barColor = ss.barColor;
-    this.rimWidth = ss.rimWidth;
-    this.rimColor = ss.rimColor;
-    this.circleRadius = ss.circleRadius;
-    this.linearProgress = ss.linearProgress;
-    this.fillRadius = ss.fillRadius;
-
-    this.lastTimeAnimated = SystemClock.uptimeMillis();
+    animator.setSpinSpeed(ss.spinSpeed);
+    animator.setLinearProgress(ss.linearProgress);
+    animator.restore(ss.mProgress, ss.mTargetProgress, ss.isSpinning, uptimeNanos());
+    exactProgress = ss.exactProgress;
+    dispatcher.setExactTarget(ss.exactProgress, ss.mTargetProgress);
+    style = WheelStyle.obtain(ss.circleRadius, ss.barWidth, ss.rimWidth, ss.fillRadius,
+        ss.barColor, ss.rimColor, ss.roundCaps);
+    updateGeometry();
   }
 
   /**
@@ -510,7 +1037,7 @@ public class ProgressWheel extends View {
    * if the wheel is indeterminate, then the result is -1
    */
   public float getProgress() {
-    return isSpinning ? -1 : mProgress / 360.0f;
+    return animator.isSpinning() ? -1 : animator.getProgress() / 360.0f;
   }
 
   //----------------------------------
@@ -524,33 +1051,119 @@ public class ProgressWheel extends View {
    * @param progress the progress between 0 and 1
    */
   public void setProgress(float progress) {
-    if (isSpinning) {
-      mProgress = 0.0f;
-      isSpinning = false;
+    setProgressFraction(clamp(progress));
+  }
+
+  /**
+   * Set the progress to a specific value, as an amount out of a total,
+   * the bar will smoothly animate until that value. The progress is kept
+   * at full precision, so big totals, like the bytes of a big download, don't lose
+   * resolution, see {@link #setPreciseCallback(PreciseProgressCallback)}.
+   *
+   * @param current the amount done, like the bytes downloaded, clamped between 0 and total
+   * @param total the total amount, more than 0
+   */
+  public void setProgress(long current, long total) {
+    setProgressFraction(fraction(current, total));
+  }
+
+  private void setProgressFraction(double fraction) {
+    boolean wasSpinning = animator.isSpinning();
 
+    float degrees = (float) (fraction * 360.0);
+    exactProgress = fraction;
+    dispatcher.setExactTarget(fraction, degrees);
+
+    long now = uptimeNanos();
+    boolean changed = animator.setTargetProgress(degrees, now);
+
+    if (wasSpinning) {
       runCallback();
+      dispatcher.dispatchModeChanged(false, now);
     }
 
-    if (progress > 1.0f) {
-      progress -= 1.0f;
-    } else if (progress < 0) {
-      progress = 0;
+    if (changed) {
+      invalidateWheel();
     }
+  }
 
-    if (progress == mTargetProgress) {
-      return;
+  /**
+   * @return the last progress set, between 0 and 1, at full precision,
+   * while {@link #getProgress()} is where the bar is
+   */
+  public double getExactProgress() {
+    return exactProgress;
+  }
+
+  /**
+   * Clamps a progress between 0 and 1, NaN is clamped to 0
+   */
+  static float clamp(float progress) {
+    return progress >= 0 ? Math.min(progress, 1.0f) : 0.0f;
+  }
+
+  private static double fraction(long current, long total) {
+    if (total <= 0) {
+      throw new IllegalArgumentException("The total must be positive, got " + total);
     }
+    return (double) Math.max(0, Math.min(current, total)) / total;
+  }
 
-    // If we are currently in the right position
-    // we set again the last time animated so the
-    // animation starts smooth from here
-    if (mProgress == mTargetProgress) {
-      lastTimeAnimated = SystemClock.uptimeMillis();
+  /**
+   * Adds a determinate progress ring inside the wheel, and inside the rings
+   * added before. All the rings are laid out and drawn with the wheel,
+   * as wide as its bar, and they keep the wheel's speed and progress mode
+   * at the time they are added. They are not saved with the view state.
+   *
+   * @param color the color of the ring
+   * @return the ring, to set its progress
+   */
+  public ProgressRing addRing(int color) {
+    ProgressRing ring = new ProgressRing(this, color);
+    ring.paint.setStrokeWidth(style.barWidth);
+    ring.setSpeed(getSpinSpeed());
+    ring.animator.setLinearProgress(animator.isLinearProgress());
+    ring.animator.setProgressEasing(animator.getSweepEasing(), animator.getOffsetEasing());
+    ring.animator.setSmoothing(animator.getSmoothing());
+    ring.animator.resetFrameTime(uptimeNanos());
+    if (rings == null) {
+      rings = new ArrayList<ProgressRing>();
+      ringBounds = new RectF();
     }
+    rings.add(ring);
+    invalidateWheel();
+    return ring;
+  }
 
-    mTargetProgress = Math.min(progress * 360.0f, 360.0f);
+  /**
+   * Removes a ring added with {@link #addRing(int)}
+   */
+  public void removeRing(ProgressRing ring) {
+    if (rings != null && rings.remove(ring)) {
+      invalidateWheel();
+    }
+  }
 
-    invalidate();
+  /**
+   * @return the number of rings inside the wheel
+   */
+  public int getRingCount() {
+    return rings != null ? rings.size() : 0;
+  }
+
+  /**
+   * Gets a sink to set the progress from any thread. The wheel reads the latest
+   * progress written on each frame, so it's meant for producers updating the
+   * progress very often, like a download, without posting every update.
+   * Get it on the UI thread, then hand it over to the producer.
+   *
+   * @return the sink of this wheel, always the same one
+   */
+  public ProgressSink getProgressSink() {
+    if (progressSink == null) {
+      progressSink = new ProgressSink(this);
+    }
+    return progressSink;
   }
 
   /**
@@ -559,17 +1172,222 @@ public class ProgressWheel extends View {
    * @param isLinear if the progress should increase linearly
    */
   public void setLinearProgress(boolean isLinear) {
-    linearProgress = isLinear;
-    if (!isSpinning) {
-      invalidate();
+    if (animator.isLinearProgress() == isLinear) {
+      return;
+    }
+
+    animator.setLinearProgress(isLinear);
+    if (!animator.isSpinning()) {
+      invalidateWheel();
+    }
+  }
+
+  /**
+   * Sets the easing curves of the non linear determinate mode,
+   * both curves map the progress (from 0 to 1) to a fraction of the wheel
+   *
+   * @param sweepEasing the length of the bar, by default {@link WheelEasing#PROGRESS_SWEEP}
+   * @param offsetEasing where the bar starts, by default {@link WheelEasing#PROGRESS_OFFSET}
+   */
+  public void setProgressEasing(WheelEasing sweepEasing, WheelEasing offsetEasing) {
+    if (animator.getSweepEasing() == sweepEasing && animator.getOffsetEasing() == offsetEasing) {
+      return;
+    }
+
+    animator.setProgressEasing(sweepEasing, offsetEasing);
+    if (!animator.isSpinning()) {
+      invalidateWheel();
     }
   }
 
+  /**
+   * Sets how the bar moves to the progress set with {@link #setProgress(float)}.
+   * By default it moves at the spin speed, with a smoothing it reaches the new
+   * progress in about the smoothing duration, whatever the spin speed is,
+   * and keeps its speed when the progress changes while it's moving.
+   *
+   * Rings added afterwards start with the same smoothing, the rings already
+   * added keep theirs, see {@link ProgressRing#setProgressSmoothing(WheelSmoothing)}.
+   *
+   * @param smoothing the smoothing, like {@link WheelSmoothing#criticallyDamped(long)},
+   * or null to move at the spin speed
+   */
+  public void setProgressSmoothing(WheelSmoothing smoothing) {
+    animator.setSmoothing(smoothing);
+  }
+
+  /**
+   * @return the smoothing of the progress, null if the bar moves at the spin speed
+   */
+  public WheelSmoothing getProgressSmoothing() {
+    return animator.getSmoothing();
+  }
+
+  /**
+   * Sets the easing curve of the spinning bar growing and shrinking
+   *
+   * @param barGrowthEasing maps the time in a grow cycle (from 0 to 1)
+   * to the fraction of the extra bar length, by default {@link WheelEasing#BAR_GROWTH}
+   */
+  public void setBarGrowthEasing(WheelEasing barGrowthEasing) {
+    animator.setBarGrowthEasing(barGrowthEasing);
+  }
+
+  /**
+   * @return the maximum frames per second of the animation,
+   * 0 if it's animated at the display refresh rate
+   */
+  public int getFrameRate() {
+    return frameRate;
+  }
+
+  /**
+   * Limits the frames per second of the animation, like 30 or 15, the wheel
+   * then skips the frames in between, but keeps moving at the same speed.
+   * When the system is saving battery, the wheel is animated
+   * at 30 frames per second at most anyway.
+   *
+   * @param frameRate the maximum frames per second, 0 to animate at the display refresh rate
+   */
+  public void setFrameRate(int frameRate) {
+    this.frameRate = Math.max(frameRate, 0);
+    updateFrameInterval();
+  }
+
+  /**
+   * @return true if the wheel is animated by the ticker shared with other wheels
+   */
+  public boolean isUsingSharedTicker() {
+    return useSharedTicker;
+  }
+
+  /**
+   * Sets if the wheel is animated by a ticker shared with the other wheels using it.
+   * The shared ticker advances all its wheels once per frame with the same
+   * frame time, which keeps them in phase and costs less than a frame loop
+   * per wheel when many wheels are animating at once.
+   * It only has effect from Jelly Bean on.
+   *
+   * @param useSharedTicker true to use the shared ticker
+   */
+  public void setUseSharedTicker(boolean useSharedTicker) {
+    if (this.useSharedTicker == useSharedTicker) {
+      return;
+    }
+
+    cancelFrame();
+    this.useSharedTicker = useSharedTicker;
+    invalidateWheel();
+  }
+
+  /**
+   * @return true if the rim is rendered once and drawn from a bitmap
+   */
+  public boolean isRimCacheEnabled() {
+    return rimCache != null;
+  }
+
+  /**
+   * Sets if the rim is rendered once in a bitmap, instead of stroking it
+   * on every frame. It's rendered again only when its color, width
+   * or the size of the view change, at the cost of keeping the bitmap
+   * in memory while the view is attached.
+   *
+   * @param enabled true to cache the rim
+   */
+  public void setRimCacheEnabled(boolean enabled) {
+    if (enabled == (rimCache != null)) {
+      return;
+    }
+
+    if (rimCache != null) {
+      rimCache.release();
+    }
+    rimCache = enabled ? new RimCache() : null;
+    invalidateWheel();
+  }
+
+  /**
+   * @return true if the rim and bar are drawn as filled paths
+   */
+  public boolean isPathRenderingEnabled() {
+    return pathRenderer != null;
+  }
+
+  /**
+   * Sets if the rim and bar are drawn as filled paths instead of stroked arcs.
+   * The outline of the strokes is worked out once and only updated when the bar
+   * length changes by a pixel or more, which is faster for thick bars and big wheels
+   * on software rendered canvases. It isn't measured on hardware rendered canvases,
+   * where the arcs are stroked by the GPU.
+   *
+   * @param enabled true to draw paths
+   */
+  public void setPathRenderingEnabled(boolean enabled) {
+    if (enabled == (pathRenderer != null)) {
+      return;
+    }
+
+    pathRenderer = enabled ? new ArcPathRenderer() : null;
+    invalidateWheel();
+  }
+
+  /**
+   * @return true if the ends of the bar are rounded
+   */
+  public boolean hasRoundCaps() {
+    return style.roundCaps;
+  }
+
+  /**
+   * Sets if the ends of the bar are rounded, instead of square
+   *
+   * @param roundCaps true for rounded ends
+   */
+  public void setRoundCaps(boolean roundCaps) {
+    if (style.roundCaps == roundCaps) {
+      return;
+    }
+
+    editStyle().setRoundCaps(roundCaps);
+    if (!isAnimationRunning()) {
+      invalidateWheel();
+    }
+  }
+
+  /**
+   * @return true if the spin is animated by the render thread when the system supports it
+   */
+  public boolean isRenderThreadSpinEnabled() {
+    return renderThreadSpin;
+  }
+
+  /**
+   * Sets if the spin is animated by the render thread, from Android 7.1 on.
+   * The wheel then keeps spinning while the UI thread is busy, like while inflating
+   * a big layout or parsing a response, and costs no UI thread work per frame.
+   * In this mode the bar width scales with the radius like in the default wheel,
+   * the spin speed and bar cycle time are the default ones, and the callback and
+   * listener aren't notified of the completed spin cycles.
+   * Before Android 7.1 the wheel spins as usual.
+   *
+   * @param enabled true to let the render thread animate the spin
+   */
+  public void setRenderThreadSpinEnabled(boolean enabled) {
+    if (renderThreadSpin == enabled) {
+      return;
+    }
+
+    renderThreadSpin = enabled;
+    resetFrameTime();
+    invalidateWheel();
+  }
+
   /**
    * @return the radius of the wheel in pixels
    */
   public int getCircleRadius() {
-    return circleRadius;
+    return style.circleRadius;
   }
 
   /**
@@ -578,17 +1396,19 @@ public class ProgressWheel extends View {
    * @param circleRadius the expected radius, in pixels
    */
   public void setCircleRadius(int circleRadius) {
-    this.circleRadius = circleRadius;
-    if (!isSpinning) {
-      invalidate();
+    if (style.circleRadius == circleRadius) {
+      return;
     }
+
+    editStyle().setCircleRadius(circleRadius);
+    updateGeometry();
   }
 
   /**
    * @return the width of the spinning bar
    */
   public int getBarWidth() {
-    return barWidth;
+    return style.barWidth;
   }
 
   /**
@@ -597,17 +1417,22 @@ public class ProgressWheel extends View {
    * @param barWidth the spinning bar width in pixels
    */
   public void setBarWidth(int barWidth) {
-    this.barWidth = barWidth;
-    if (!isSpinning) {
-      invalidate();
+    if (style.barWidth == barWidth) {
+      return;
+    }
+
+    editStyle().setBarWidth(barWidth);
+    for (int i = 0, size = getRingCount(); i < size; i++) {
+      rings.get(i).paint.setStrokeWidth(barWidth);
     }
+    updateGeometry();
   }
 
   /**
    * @return the color of the spinning bar
    */
   public int getBarColor() {
-    return barColor;
+    return style.barColor;
   }
 
   /**
@@ -616,10 +1441,61 @@ public class ProgressWheel extends View {
    * @param barColor The spinning bar color
    */
   public void setBarColor(int barColor) {
-    this.barColor = barColor;
-    setupPaints();
-    if (!isSpinning) {
-      invalidate();
+    barColors = null;
+    if (style.barColor == barColor) {
+      return;
+    }
+
+    editStyle().setBarColor(barColor);
+    if (!isAnimationRunning()) {
+      invalidateWheel();
+    }
+  }
+
+  /**
+   * Sets the colors the spinning bar cycles through, the bar changes to the next color
+   * each time it completes a spin cycle, starting over when the wheel starts spinning.
+   * Only the paint color changes, so cycling costs nothing per frame.
+   * {@link #setBarColor(int)} goes back to a single color.
+   * The colors aren't saved with the view state.
+   *
+   * @param colors the bar colors, at least one
+   */
+  public void setBarColors(int... colors) {
+    if (colors == null || colors.length == 0) {
+      throw new IllegalArgumentException("At least one color is needed");
+    }
+
+    barColors = colors.clone();
+    updateCycleColor();
+    if (!isAnimationRunning()) {
+      invalidateWheel();
+    }
+  }
+
+  /**
+   * Paints the bar with a sweep gradient around the wheel, starting at the top and going
+   * clockwise, so the colors change as the bar goes around. Repeat the first color
+   * at the end for a smooth gradient all around. The gradient is created once for
+   * the size of the wheel, the alpha of the bar color still applies to it.
+   * It isn't saved with the view state, and the render thread spin draws the plain color.
+   *
+   * @param colors the colors of the gradient, at least two, or null for a plain bar
+   */
+  public void setBarGradient(int... colors) {
+    if (colors != null && colors.length < 2) {
+      throw new IllegalArgumentException("A gradient needs at least two colors");
+    }
+
+    barGradientColors = colors != null ? colors.clone() : null;
+    barGradient = null;
+    if (barGradientColors != null) {
+      updateBarGradient();
+    } else if (style.barPaint.getShader() != null) {
+      editStyle().setBarShader(null);
+    }
+    if (!isAnimationRunning()) {
+      invalidateWheel();
     }
   }
 
@@ -627,7 +1503,7 @@ public class ProgressWheel extends View {
    * @return the color of the wheel's contour
    */
   public int getRimColor() {
-    return rimColor;
+    return style.rimColor;
   }
 
   /**
@@ -636,38 +1512,42 @@ public class ProgressWheel extends View {
    * @param rimColor the color for the wheel
    */
   public void setRimColor(int rimColor) {
-    this.rimColor = rimColor;
-    setupPaints();
-    if (!isSpinning) {
-      invalidate();
+    if (style.rimColor == rimColor) {
+      return;
+    }
+
+    editStyle().setRimColor(rimColor);
+    invalidateRim();
+    if (!isAnimationRunning()) {
+      invalidateWheel();
     }
   }
 
   /**
    * @return the base spinning speed, in full circle turns per second
    * (1.0 equals on full turn in one second), this value also is applied for
-   * the smoothness when setting a progress
+   * the smoothness when setting a progress, unless {@link #setProgressSmoothing} is used
    */
   public float getSpinSpeed() {
-    return spinSpeed / 360.0f;
+    return animator.getSpinSpeed() / 360.0f;
   }
 
   /**
    * Sets the base spinning speed, in full circle turns per second
    * (1.0 equals on full turn in one second), this value also is applied for
-   * the smoothness when setting a progress
+   * the smoothness when setting a progress, unless {@link #setProgressSmoothing} is used
    *
    * @param spinSpeed the desired base speed in full turns per second
    */
   public void setSpinSpeed(float spinSpeed) {
-    this.spinSpeed = spinSpeed * 360.0f;
+    animator.setSpinSpeed(spinSpeed * 360.0f);
   }
 
   /**
    * @return the width of the wheel's contour in pixels
    */
   public int getRimWidth() {
-    return rimWidth;
+    return style.rimWidth;
   }
 
   /**
@@ -676,10 +1556,12 @@ public class ProgressWheel extends View {
    * @param rimWidth the width in pixels
    */
   public void setRimWidth(int rimWidth) {
-    this.rimWidth = rimWidth;
-    if (!isSpinning) {
-      invalidate();
+    if (style.rimWidth == rimWidth) {
+      return;
     }
+
+    editStyle().setRimWidth(rimWidth);
+    updateGeometry();
   }
 
   public interface ProgressCallback {
@@ -696,6 +1578,74 @@ public class ProgressWheel extends View {
     public void onProgressUpdate(float progress);
   }
 
+  public interface PreciseProgressCallback {
+    /**
+     * Method to call when the bar moves at least a pixel, or reaches the progress set
+     *
+     * @param progress the progress between 0 and 1, not rounded
+     */
+    public void onProgressUpdate(double progress);
+  }
+
+  /**
+   * Listener for the progress events, all the times are in the
+   * {@link android.os.SystemClock#uptimeMillis()} time base, and are the
+   * time of the frame the event happened in
+   */
+  public interface ProgressListener {
+    /**
+     * The progress reached the value it was animating to
+     *
+     * @param progress the progress, between 0 and 1
+     * @param uptimeMillis when it was reached
+     */
+    public void onTargetReached(float progress, long uptimeMillis);
+
+    /**
+     * The progress crossed one of the thresholds
+     *
+     * @param threshold the threshold, between 0 and 1
+     * @param increasing true if the progress went over the threshold,
+     * false if it went back under it
+     * @param uptimeMillis when it was crossed
+     */
+    public void onThresholdCrossed(float threshold, boolean increasing, long uptimeMillis);
+
+    /**
+     * The spinning wheel completed a full turn
+     *
+     * @param cycle the number of turns since the wheel started spinning
+     * @param uptimeMillis when the turn was completed
+     */
+    public void onSpinCycleCompleted(int cycle, long uptimeMillis);
+
+    /**
+     * The wheel started or stopped spinning
+     *
+     * @param spinning true if it's now spinning, false if it's now determinate
+     * @param uptimeMillis when the mode changed
+     */
+    public void onModeChanged(boolean spinning, long uptimeMillis);
+  }
+
+  /**
+   * A {@link ProgressListener} doing nothing, for overriding only the events needed
+   */
+  public static class SimpleProgressListener implements ProgressListener {
+    @Override public void onTargetReached(float progress, long uptimeMillis) {
+    }
+
+    @Override public void onThresholdCrossed(float threshold, boolean increasing,
+        long uptimeMillis) {
+    }
+
+    @Override public void onSpinCycleCompleted(int cycle, long uptimeMillis) {
+    }
+
+    @Override public void onModeChanged(boolean spinning, long uptimeMillis) {
+    }
+  }
+
   static class WheelSavedState extends BaseSavedState {
     //required field that makes Parcelables from a Parcel
     public static final Parcelable.Creator<WheelSavedState> CREATOR =
@@ -710,6 +1660,7 @@ public class ProgressWheel extends View {
         };
     float mProgress;
     float mTargetProgress;
+    double exactProgress;
     boolean isSpinning;
     float spinSpeed;
     int barWidth;
@@ -719,6 +1670,7 @@ public class ProgressWheel extends View {
     int circleRadius;
     boolean linearProgress;
     boolean fillRadius;
+    boolean roundCaps;
 
     WheelSavedState(Parcelable superState) {
       super(superState);
@@ -728,6 +1680,7 @@ public class ProgressWheel extends View {
       super(in);
       this.mProgress = in.readFloat();
       this.mTargetProgress = in.readFloat();
+      this.exactProgress = in.readDouble();
       this.isSpinning = in.readByte() != 0;
       this.spinSpeed = in.readFloat();
       this.barWidth = in.readInt();
@@ -737,12 +1690,14 @@ public class ProgressWheel extends View {
       this.circleRadius = in.readInt();
       this.linearProgress = in.readByte() != 0;
       this.fillRadius = in.readByte() != 0;
+      this.roundCaps = in.readByte() != 0;
     }
 
     @Override public void writeToParcel(Parcel out, int flags) {
       super.writeToParcel(out, flags);
       out.writeFloat(this.mProgress);
       out.writeFloat(this.mTargetProgress);
+      out.writeDouble(this.exactProgress);
       out.writeByte((byte) (isSpinning ? 1 : 0));
       out.writeFloat(this.spinSpeed);
       out.writeInt(this.barWidth);
@@ -752,6 +1707,7 @@ public class ProgressWheel extends View {
       out.writeInt(this.circleRadius);
       out.writeByte((byte) (linearProgress ? 1 : 0));
       out.writeByte((byte) (fillRadius ? 1 : 0));
+      out.writeByte((byte) (roundCaps ? 1 : 0));
     }
   }
 }
@@ -0,0 +1,388 @@
+package com.pnikosis.materialishprogress;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.Paint.Style;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.drawable.Animatable;
+import android.graphics.drawable.Drawable;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+
+/**
+ * The {@link ProgressWheel} as a {@link Drawable}, for showing the wheel
+ * without a custom view: in an ImageView, as a compound drawable, as a background...
+ *
+ * It draws and animates like the view, the wheel fills the bounds
+ * of the drawable. {@link #start()} puts it on spin mode.
+ */
+public class ProgressWheelDrawable extends Drawable implements Animatable {
+  //Sizes (with defaults in DP)
+  private int circleRadius = ProgressWheel.DEFAULT_CIRCLE_RADIUS;
+  private int barWidth = ProgressWheel.DEFAULT_BAR_WIDTH;
+  private int rimWidth = ProgressWheel.DEFAULT_RIM_WIDTH;
+
+  //Colors, the paints have them with the alpha of the drawable applied
+  private int barColor = ProgressWheel.DEFAULT_BAR_COLOR;
+  private int rimColor = ProgressWheel.DEFAULT_RIM_COLOR;
+  private int alpha = 255;
+
+  //Paints
+  private final Paint barPaint = new Paint();
+  private final Paint rimPaint = new Paint();
+
+  //Rectangles
+  private final RectF circleBounds = new RectF();
+
+  //Animation
+  private final WheelAnimator animator = new WheelAnimator();
+  private WheelClock clock = WheelClock.SYSTEM;
+  // The system settings limiting the animation
+  private final MotionPolicy motionPolicy;
+  // If the last frame was drawn without animations
+  private boolean drawnStill = false;
+
+  /**
+   * Creates the drawable, with the same defaults as the view
+   */
+  public ProgressWheelDrawable(Context context) {
+    motionPolicy = MotionPolicy.getInstance(context);
+
+    // We transform the default values from DIP to pixels
+    DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+    barWidth = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, barWidth, metrics);
+    rimWidth = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, rimWidth, metrics);
+    circleRadius =
+        (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, circleRadius, metrics);
+
+    barPaint.setAntiAlias(true);
+    barPaint.setStyle(Style.STROKE);
+    barPaint.setStrokeWidth(barWidth);
+
+    rimPaint.setAntiAlias(true);
+    rimPaint.setStyle(Style.STROKE);
+    rimPaint.setStrokeWidth(rimWidth);
+
+    updatePaintColors();
+  }
+
+  /**
+   * Sets the colors to the paints, with their own alpha scaled by the alpha of the drawable
+   */
+  private void updatePaintColors() {
+    barPaint.setColor(applyAlpha(barColor));
+    rimPaint.setColor(applyAlpha(rimColor));
+  }
+
+  private int applyAlpha(int color) {
+    return (color & 0x00FFFFFF) | ((Color.alpha(color) * alpha / 255) << 24);
+  }
+
+  @Override protected void onBoundsChange(Rect bounds) {
+    super.onBoundsChange(bounds);
+    setupBounds();
+  }
+
+  /**
+   * The wheel fills the bounds, keeping the bar inside them
+   */
+  private void setupBounds() {
+    Rect bounds = getBounds();
+    int circleDiameter = Math.min(bounds.width(), bounds.height());
+    int xOffset = bounds.left + (bounds.width() - circleDiameter) / 2;
+    int yOffset = bounds.top + (bounds.height() - circleDiameter) / 2;
+
+    circleBounds.set(xOffset + barWidth, yOffset + barWidth, xOffset + circleDiameter - barWidth,
+        yOffset + circleDiameter - barWidth);
+  }
+
+  @Override public void draw(Canvas canvas) {
+    if (Color.alpha(rimPaint.getColor()) != 0) {
+      canvas.drawArc(circleBounds, 360, 360, false, rimPaint);
+    }
+
+    float from;
+    float length;
+    boolean mustInvalidate = false;
+
+    if (motionPolicy.isAnimationEnabled()) {
+      if (drawnStill) {
+        // The wheel starts moving from where it stood
+        drawnStill = false;
+        animator.resetFrameTime(clock.nanoTime());
+      }
+      mustInvalidate = isVisible() && animator.update(clock.nanoTime());
+      from = animator.getArcStart();
+      length = animator.getArcSweep();
+    } else {
+      // Without animations the changes are applied right away, and the spinning bar stands still
+      drawnStill = true;
+      if (animator.isSpinning()) {
+        from = ProgressWheel.STILL_SPIN_START;
+        length = ProgressWheel.STILL_SPIN_SWEEP;
+      } else {
+        animator.setInstantProgress(animator.getTargetProgress(), clock.nanoTime());
+        from = animator.getArcStart();
+        length = animator.getArcSweep();
+      }
+    }
+
+    canvas.drawArc(circleBounds, from, length, false, barPaint);
+
+    if (mustInvalidate) {
+      invalidateSelf();
+    }
+  }
+
+  @Override public boolean setVisible(boolean visible, boolean restart) {
+    boolean changed = super.setVisible(visible, restart);
+    if (visible && changed) {
+      // The time it was hidden isn't animated
+      animator.resetFrameTime(clock.nanoTime());
+      invalidateSelf();
+    }
+    return changed;
+  }
+
+  @Override public int getIntrinsicWidth() {
+    return circleRadius * 2;
+  }
+
+  @Override public int getIntrinsicHeight() {
+    return circleRadius * 2;
+  }
+
+  @Override public void setAlpha(int alpha) {
+    if (this.alpha == alpha) {
+      return;
+    }
+
+    this.alpha = alpha;
+    updatePaintColors();
+    invalidateSelf();
+  }
+
+  @Override public int getAlpha() {
+    return alpha;
+  }
+
+  @Override public void setColorFilter(ColorFilter colorFilter) {
+    barPaint.setColorFilter(colorFilter);
+    rimPaint.setColorFilter(colorFilter);
+    invalidateSelf();
+  }
+
+  @Override public int getOpacity() {
+    return PixelFormat.TRANSLUCENT;
+  }
+
+  /**
+   * Replaces the clock, for tests
+   */
+  void setClock(WheelClock clock) {
+    this.clock = clock;
+    animator.resetFrameTime(clock.nanoTime());
+  }
+
+  //----------------------------------
+  //Animatable
+  //----------------------------------
+
+  /**
+   * Puts the wheel on spin mode
+   */
+  @Override public void start() {
+    spin();
+  }
+
+  /**
+   * Turns off spin mode
+   */
+  @Override public void stop() {
+    stopSpinning();
+  }
+
+  /**
+   * @return true if the wheel is spinning or animating to a progress
+   */
+  @Override public boolean isRunning() {
+    return animator.isRunning();
+  }
+
+  //----------------------------------
+  //Getters + setters
+  //----------------------------------
+
+  /**
+   * Puts the wheel on spin mode
+   */
+  public void spin() {
+    animator.spin(clock.nanoTime());
+    invalidateSelf();
+  }
+
+  /**
+   * Turn off spin mode
+   */
+  public void stopSpinning() {
+    animator.stopSpinning();
+    invalidateSelf();
+  }
+
+  /**
+   * Check if the wheel is currently spinning
+   */
+  public boolean isSpinning() {
+    return animator.isSpinning();
+  }
+
+  /**
+   * Set the progress to a specific value,
+   * the bar will smoothly animate until that value
+   *
+   * @param progress the progress between 0 and 1
+   */
+  public void setProgress(float progress) {
+    if (animator.setTargetProgress(ProgressWheel.clamp(progress) * 360.0f,
+        clock.nanoTime())) {
+      invalidateSelf();
+    }
+  }
+
+  /**
+   * Set the progress to a specific value,
+   * the bar will be set instantly to that value
+   *
+   * @param progress the progress between 0 and 1
+   */
+  public void setInstantProgress(float progress) {
+    if (animator.setInstantProgress(ProgressWheel.clamp(progress) * 360.0f,
+        clock.nanoTime())) {
+      invalidateSelf();
+    }
+  }
+
+  /**
+   * @return the current progress between 0.0 and 1.0,
+   * if the wheel is indeterminate, then the result is -1
+   */
+  public float getProgress() {
+    return animator.isSpinning() ? -1 : animator.getProgress() / 360.0f;
+  }
+
+  /**
+   * Sets the determinate progress mode
+   *
+   * @param isLinear if the progress should increase linearly
+   */
+  public void setLinearProgress(boolean isLinear) {
+    animator.setLinearProgress(isLinear);
+    invalidateSelf();
+  }
+
+  /**
+   * Sets how the bar moves to a new progress
+   *
+   * @param smoothing the smoothing, or null to move at the spin speed
+   * @see ProgressWheel#setProgressSmoothing(WheelSmoothing)
+   */
+  public void setProgressSmoothing(WheelSmoothing smoothing) {
+    animator.setSmoothing(smoothing);
+  }
+
+  /**
+   * Sets the base spinning speed, in full circle turns per second
+   *
+   * @param spinSpeed the desired base speed in full turns per second
+   */
+  public void setSpinSpeed(float spinSpeed) {
+    animator.setSpinSpeed(spinSpeed * 360.0f);
+  }
+
+  /**
+   * @return the base spinning speed, in full circle turns per second
+   */
+  public float getSpinSpeed() {
+    return animator.getSpinSpeed() / 360.0f;
+  }
+
+  /**
+   * Sets the radius of the wheel, only used as the intrinsic size
+   * of the drawable, the wheel always fills the bounds
+   *
+   * @param circleRadius the expected radius, in pixels
+   */
+  public void setCircleRadius(int circleRadius) {
+    this.circleRadius = circleRadius;
+  }
+
+  public int getCircleRadius() {
+    return circleRadius;
+  }
+
+  /**
+   * Sets the color of the spinning bar
+   *
+   * @param barColor The spinning bar color
+   */
+  public void setBarColor(int barColor) {
+    this.barColor = barColor;
+    barPaint.setColor(applyAlpha(barColor));
+    invalidateSelf();
+  }
+
+  public int getBarColor() {
+    return barColor;
+  }
+
+  /**
+   * Sets the width of the spinning bar
+   *
+   * @param barWidth the spinning bar width in pixels
+   */
+  public void setBarWidth(int barWidth) {
+    this.barWidth = barWidth;
+    barPaint.setStrokeWidth(barWidth);
+    setupBounds();
+    invalidateSelf();
+  }
+
+  public int getBarWidth() {
+    return barWidth;
+  }
+
+  /**
+   * Sets the color of the wheel's contour
+   *
+   * @param rimColor the color for the wheel
+   */
+  public void setRimColor(int rimColor) {
+    this.rimColor = rimColor;
+    rimPaint.setColor(applyAlpha(rimColor));
+    invalidateSelf();
+  }
+
+  public int getRimColor() {
+    return rimColor;
+  }
+
+  /**
+   * Sets the width of the wheel's contour
+   *
+   * @param rimWidth the width in pixels
+   */
+  public void setRimWidth(int rimWidth) {
+    this.rimWidth = rimWidth;
+    rimPaint.setStrokeWidth(rimWidth);
+    invalidateSelf();
+  }
+
+  public int getRimWidth() {
+    return rimWidth;
+  }
+}
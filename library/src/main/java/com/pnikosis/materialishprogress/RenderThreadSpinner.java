@@ -0,0 +1,78 @@
+package com.pnikosis.materialishprogress;
+
+import android.annotation.TargetApi;
+import android.graphics.Canvas;
+import android.graphics.RectF;
+import android.graphics.drawable.Animatable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+
+/**
+ * The spin mode of a wheel as an animated vector drawable.
+ *
+ * From Android 7.1 on, an AnimatedVectorDrawable is animated by the render thread,
+ * so the wheel keeps spinning while the UI thread is busy, and the UI thread
+ * doesn't do anything per frame. The animation is described in
+ * res/drawable-v21/matprog_spinner.xml, it replays the bar of the default spin
+ * speed and bar cycle time, so those settings of the wheel don't apply to it.
+ */
+@TargetApi(Build.VERSION_CODES.LOLLIPOP) final class RenderThreadSpinner {
+  // Android 7.1, the first version animating vector drawables in the render thread
+  private static final int RENDER_THREAD_API = 25;
+  // The circle in the vector is 40 units wide, in a viewport of 48
+  private static final float VIEWPORT_SCALE = 48.0f / 40.0f;
+
+  private final Drawable drawable;
+  private final RectF lastCircleBounds = new RectF();
+  private int tint;
+  private boolean tinted = false;
+
+  RenderThreadSpinner(ProgressWheel wheel) {
+    drawable = wheel.getContext().getDrawable(R.drawable.matprog_spinner).mutate();
+    drawable.setCallback(wheel);
+  }
+
+  /**
+   * @return true if the render thread can animate the spinner in this Android version
+   */
+  static boolean isSupported() {
+    return Build.VERSION.SDK_INT >= RENDER_THREAD_API;
+  }
+
+  /**
+   * Draws the spinner in the circle of the wheel, starting its animation if needed.
+   * The bar width scales with the circle, like the default wheel.
+   */
+  void draw(Canvas canvas, RectF circleBounds, int color) {
+    if (!lastCircleBounds.equals(circleBounds)) {
+      lastCircleBounds.set(circleBounds);
+      float size = Math.min(circleBounds.width(), circleBounds.height()) * VIEWPORT_SCALE;
+      int left = Math.round(circleBounds.centerX() - size / 2);
+      int top = Math.round(circleBounds.centerY() - size / 2);
+      drawable.setBounds(left, top, left + Math.round(size), top + Math.round(size));
+    }
+
+    if (!tinted || tint != color) {
+      tint = color;
+      tinted = true;
+      drawable.setTint(color);
+    }
+
+    Animatable animatable = (Animatable) drawable;
+    if (!animatable.isRunning()) {
+      animatable.start();
+    }
+    drawable.draw(canvas);
+  }
+
+  /**
+   * Stops the animation, it starts again on the next draw
+   */
+  void stop() {
+    ((Animatable) drawable).stop();
+  }
+
+  boolean isDrawable(Drawable who) {
+    return who == drawable;
+  }
+}
@@ -0,0 +1,82 @@
+package com.pnikosis.materialishprogress;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+
+/**
+ * Keeps the rim of a wheel rendered in a bitmap, so every frame
+ * draws a bitmap instead of an anti-aliased stroked circle.
+ *
+ * The bitmap is rendered on the first draw, and kept until the rim,
+ * or the bounds it is drawn in, change. Rendering it again
+ * with the same size reuses the bitmap.
+ */
+final class RimCache {
+  private final RectF bitmapBounds = new RectF();
+  private final Canvas bitmapCanvas = new Canvas();
+  private Bitmap bitmap;
+  private boolean dirty = true;
+  private float left;
+  private float top;
+
+  /**
+   * Draws the rim, rendering it first if it isn't cached
+   */
+  void draw(Canvas canvas, RectF circleBounds, Paint rimPaint) {
+    if (dirty) {
+      render(circleBounds, rimPaint);
+    }
+
+    if (bitmap != null) {
+      canvas.drawBitmap(bitmap, left, top, null);
+    }
+  }
+
+  private void render(RectF circleBounds, Paint rimPaint) {
+    // The stroke is centered on the circle, it goes half its width outside
+    float halfStroke = rimPaint.getStrokeWidth() / 2 + 1;
+    left = (float) Math.floor(circleBounds.left - halfStroke);
+    top = (float) Math.floor(circleBounds.top - halfStroke);
+    int width = (int) Math.ceil(circleBounds.right + halfStroke - left);
+    int height = (int) Math.ceil(circleBounds.bottom + halfStroke - top);
+
+    if (width <= 0 || height <= 0) {
+      release();
+      return;
+    }
+
+    if (bitmap != null && bitmap.getWidth() == width && bitmap.getHeight() == height) {
+      bitmap.eraseColor(Color.TRANSPARENT);
+    } else {
+      release();
+      bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+      bitmapCanvas.setBitmap(bitmap);
+    }
+
+    bitmapBounds.set(circleBounds);
+    bitmapBounds.offset(-left, -top);
+    bitmapCanvas.drawArc(bitmapBounds, 360, 360, false, rimPaint);
+    dirty = false;
+  }
+
+  /**
+   * Marks the cached rim as outdated, it will be rendered again on the next draw
+   */
+  void invalidate() {
+    dirty = true;
+  }
+
+  /**
+   * Frees the bitmap, it will be created again on the next draw
+   */
+  void release() {
+    dirty = true;
+    if (bitmap != null) {
+      bitmap.recycle();
+      bitmap = null;
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.pnikosis.materialishprogress;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+import java.util.ArrayList;
+
+/**
+ * A single frame clock for all the wheels that use it.
+ *
+ * There is only one Choreographer callback for every animating wheel,
+ * they are all advanced with the same frame time, so they stay in phase,
+ * and they invalidate together before the traversal of that frame.
+ * A wheel is ticked only for the frames it requests, so a detached or
+ * hidden wheel drops out on its own.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN) final class SharedWheelTicker
+    implements Choreographer.FrameCallback {
+  private static SharedWheelTicker instance;
+
+  private final Choreographer choreographer;
+  // The wheels that requested the next frame
+  private ArrayList<ProgressWheel> pending = new ArrayList<ProgressWheel>();
+  // The wheels being ticked, swapped with the pending ones on each frame
+  private ArrayList<ProgressWheel> ticking = new ArrayList<ProgressWheel>();
+  private boolean posted = false;
+
+  private SharedWheelTicker() {
+    choreographer = Choreographer.getInstance();
+  }
+
+  /**
+   * Must be called on the UI thread
+   */
+  static SharedWheelTicker getInstance() {
+    if (instance == null) {
+      instance = new SharedWheelTicker();
+    }
+    return instance;
+  }
+
+  /**
+   * Requests the next frame for a wheel
+   */
+  void post(ProgressWheel wheel) {
+    if (!pending.contains(wheel)) {
+      pending.add(wheel);
+    }
+
+    if (!posted) {
+      posted = true;
+      choreographer.postFrameCallback(this);
+    }
+  }
+
+  /**
+   * Cancels the frame requested by a wheel
+   */
+  void cancel(ProgressWheel wheel) {
+    pending.remove(wheel);
+
+    if (posted && pending.isEmpty()) {
+      posted = false;
+      choreographer.removeFrameCallback(this);
+    }
+  }
+
+  @Override public void doFrame(long frameTimeNanos) {
+    posted = false;
+
+    // The wheels request the following frame while being ticked
+    ArrayList<ProgressWheel> wheels = pending;
+    pending = ticking;
+    ticking = wheels;
+
+    for (int i = 0, size = wheels.size(); i < size; i++) {
+      wheels.get(i).onAnimationFrame(frameTimeNanos);
+    }
+    wheels.clear();
+  }
+}
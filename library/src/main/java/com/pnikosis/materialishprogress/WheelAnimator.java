@@ -0,0 +1,405 @@
+package com.pnikosis.materialishprogress;
+
+/**
+ * The animation state of a {@link ProgressWheel}, without any Android dependency.
+ *
+ * The wheel feeds it a frame timestamp with {@link #update(long)}, and reads back
+ * the arc to draw with {@link #getArcStart()} and {@link #getArcSweep()}.
+ * Updating twice with the same timestamp doesn't move the animation, so
+ * drawing more than once per frame doesn't make it drift.
+ *
+ * All the angles are in degrees, the timestamps in nanoseconds.
+ */
+final class WheelAnimator {
+  private static final long NANOS_PER_MILLI = 1000000L;
+  private static final long NANOS_PER_SECOND = 1000000000L;
+  private static final int BAR_LENGTH = 16;
+  private static final int BAR_MAX_LENGTH = 270;
+  private static final long PAUSE_GROWING_TIME = 200;
+  static final float DEFAULT_SPIN_SPEED = 230.0f;
+  static final int DEFAULT_BAR_SPIN_CYCLE_TIME = 460;
+
+  //The amount of degrees per second
+  private float spinSpeed = DEFAULT_SPIN_SPEED;
+  private double barSpinCycleTime = DEFAULT_BAR_SPIN_CYCLE_TIME;
+  private boolean linearProgress;
+
+  //Easing curves, precomputed and shared by all the wheels
+  private WheelEasing barGrowthEasing = WheelEasing.BAR_GROWTH;
+  private WheelEasing sweepEasing = WheelEasing.PROGRESS_SWEEP;
+  private WheelEasing offsetEasing = WheelEasing.PROGRESS_OFFSET;
+
+  //Time based smoothing of the progress, null to move at spinSpeed
+  private WheelSmoothing smoothing;
+  //Distance to the target and velocity when the target was set, and when it was set
+  private double smoothingOffset = 0;
+  private double smoothingVelocity = 0;
+  private long smoothingStartTime = 0;
+
+  private float progress = 0.0f;
+  private float targetProgress = 0.0f;
+  private boolean spinning = false;
+
+  //Bar growing state, times in milliseconds
+  private double timeStartGrowing = 0;
+  private double pausedTimeWithoutGrowing = 0;
+  private float barExtraLength = 0;
+  private boolean barGrowingFromFront = true;
+
+  // The last time the wheel was animated
+  private long lastFrameTime = 0;
+
+  // Number of full turns completed while spinning
+  private int completedCycles = 0;
+
+  //The arc to draw for the last frame
+  private float arcStart = -90;
+  private float arcSweep = 0;
+
+  /**
+   * Advances the animation up to the given frame time
+   *
+   * @param frameTimeNanos the frame timestamp, in the {@link System#nanoTime()} time base
+   * @return true if the animation is still running and a new frame is needed
+   */
+  boolean update(long frameTimeNanos) {
+    // A frame time going backwards (or repeated) doesn't move the animation
+    double deltaMillis = Math.max(frameTimeNanos - lastFrameTime, 0) / (double) NANOS_PER_MILLI;
+    if (frameTimeNanos > lastFrameTime) {
+      lastFrameTime = frameTimeNanos;
+    }
+
+    boolean mustInvalidate = false;
+
+    if (spinning) {
+      mustInvalidate = true;
+
+      updateBarLength(deltaMillis);
+
+      progress += deltaMillis * spinSpeed / 1000.0f;
+      if (progress > 360) {
+        progress -= 360f;
+
+        // A full turn has been completed
+        completedCycles++;
+      }
+    } else if (progress != targetProgress) {
+      //We smoothly increase the progress bar
+      mustInvalidate = true;
+
+      if (smoothing != null) {
+        progress = smoothedProgress();
+      } else {
+        progress =
+            Math.min(progress + (float) (deltaMillis * spinSpeed / 1000.0f), targetProgress);
+      }
+    }
+
+    updateArc();
+
+    return mustInvalidate;
+  }
+
+  /**
+   * @return the progress at the last frame time, following the smoothing since the target was set
+   */
+  private float smoothedProgress() {
+    long elapsed = Math.max(lastFrameTime - smoothingStartTime, 0);
+    double seconds = elapsed / (double) NANOS_PER_SECOND;
+    double offset = smoothing.offsetAt(smoothingOffset, smoothingVelocity, seconds);
+    double velocity = smoothing.velocityAt(smoothingOffset, smoothingVelocity, seconds);
+
+    if (smoothing.isSettled(offset, velocity, elapsed)) {
+      return targetProgress;
+    }
+    // A spring goes past the target, but the bar can't go past the wheel
+    return (float) Math.max(0, Math.min(targetProgress + offset, 360));
+  }
+
+  /**
+   * @return the velocity of the smoothed progress at the last frame time, in degrees per second
+   */
+  private double smoothedVelocity() {
+    if (progress == targetProgress) {
+      return 0;
+    }
+
+    double seconds = Math.max(lastFrameTime - smoothingStartTime, 0) / (double) NANOS_PER_SECOND;
+    return smoothing.velocityAt(smoothingOffset, smoothingVelocity, seconds);
+  }
+
+  private void updateBarLength(double deltaTimeInMilliSeconds) {
+    if (pausedTimeWithoutGrowing >= PAUSE_GROWING_TIME) {
+      timeStartGrowing += deltaTimeInMilliSeconds;
+
+      if (timeStartGrowing > barSpinCycleTime) {
+        // We completed a size change cycle
+        // (growing or shrinking)
+        timeStartGrowing -= barSpinCycleTime;
+        pausedTimeWithoutGrowing = 0;
+        barGrowingFromFront = !barGrowingFromFront;
+      }
+
+      float distance = barGrowthEasing.valueAt((float) (timeStartGrowing / barSpinCycleTime));
+      float destLength = (BAR_MAX_LENGTH - BAR_LENGTH);
+
+      if (barGrowingFromFront) {
+        barExtraLength = distance * destLength;
+      } else {
+        float newLength = destLength * (1 - distance);
+        progress += (barExtraLength - newLength);
+        barExtraLength = newLength;
+      }
+    } else {
+      pausedTimeWithoutGrowing += deltaTimeInMilliSeconds;
+    }
+  }
+
+  private void updateArc() {
+    if (spinning) {
+      arcStart = progress - 90;
+      arcSweep = BAR_LENGTH + barExtraLength;
+    } else {
+      float offset = 0.0f;
+      float sweep = progress;
+      if (!linearProgress) {
+        offset = offsetEasing.valueAt(progress / 360.0f) * 360.0f;
+        sweep = sweepEasing.valueAt(progress / 360.0f) * 360.0f;
+      }
+      arcStart = offset - 90;
+      arcSweep = sweep;
+    }
+  }
+
+  /**
+   * Puts the animation on spin mode, starting from the given time.
+   * The completed turns are counted again from 0 if it wasn't spinning.
+   */
+  void spin(long nowNanos) {
+    if (!spinning) {
+      completedCycles = 0;
+    }
+    lastFrameTime = nowNanos;
+    spinning = true;
+  }
+
+  /**
+   * Turns off spin mode, resetting the progress
+   */
+  void stopSpinning() {
+    spinning = false;
+    progress = 0.0f;
+    targetProgress = 0.0f;
+    updateArc();
+  }
+
+  /**
+   * Resets the progress (in increment mode)
+   */
+  void resetCount() {
+    progress = 0.0f;
+    targetProgress = 0.0f;
+    updateArc();
+  }
+
+  /**
+   * Sets the progress the wheel smoothly animates to
+   *
+   * @param degrees the target, between 0 and 360
+   * @param nowNanos the current time
+   * @return false if the target didn't change
+   */
+  boolean setTargetProgress(float degrees, long nowNanos) {
+    if (spinning) {
+      progress = 0.0f;
+      spinning = false;
+    }
+
+    if (degrees == targetProgress) {
+      return false;
+    }
+
+    // If we are currently in the right position
+    // we set again the last time animated so the
+    // animation starts smooth from here
+    if (progress == targetProgress) {
+      lastFrameTime = nowNanos;
+    }
+
+    if (smoothing != null) {
+      // The new movement starts where the bar was last drawn, at the same speed
+      smoothingVelocity = smoothedVelocity();
+      smoothingOffset = progress - degrees;
+      smoothingStartTime = lastFrameTime;
+    }
+
+    targetProgress = degrees;
+    return true;
+  }
+
+  /**
+   * Sets the progress instantly, without animating
+   *
+   * @param degrees the progress, between 0 and 360
+   * @param nowNanos the current time
+   * @return false if the progress didn't change
+   */
+  boolean setInstantProgress(float degrees, long nowNanos) {
+    if (spinning) {
+      progress = 0.0f;
+      spinning = false;
+    }
+
+    if (degrees == targetProgress && degrees == progress) {
+      return false;
+    }
+
+    targetProgress = degrees;
+    progress = degrees;
+    lastFrameTime = nowNanos;
+    updateArc();
+    return true;
+  }
+
+  /**
+   * Restarts the frame time base, so the time the animation
+   * has been paused doesn't count as animated time
+   */
+  void resetFrameTime(long nowNanos) {
+    // The smoothing continues from where it was paused
+    smoothingStartTime += nowNanos - lastFrameTime;
+    lastFrameTime = nowNanos;
+  }
+
+  /**
+   * Restores a previously saved state
+   */
+  void restore(float progress, float targetProgress, boolean spinning, long nowNanos) {
+    this.progress = progress;
+    this.targetProgress = targetProgress;
+    this.spinning = spinning;
+    this.lastFrameTime = nowNanos;
+    updateArc();
+  }
+
+  boolean isSpinning() {
+    return spinning;
+  }
+
+  /**
+   * @return true if the wheel is spinning or moving to its target progress
+   */
+  boolean isRunning() {
+    return spinning || progress != targetProgress;
+  }
+
+  /**
+   * @return the current progress, in degrees
+   */
+  float getProgress() {
+    return progress;
+  }
+
+  /**
+   * @return the target progress, in degrees
+   */
+  float getTargetProgress() {
+    return targetProgress;
+  }
+
+  /**
+   * Normalizes a progress in degrees to a value between 0 and 1, rounded
+   * to two decimals in order to avoid float precision issues
+   */
+  static float roundProgress(float degrees) {
+    return (float) Math.round(degrees * 100 / 360.0f) / 100;
+  }
+
+  /**
+   * @return the number of full turns completed while spinning
+   */
+  int getCompletedCycles() {
+    return completedCycles;
+  }
+
+  float getArcStart() {
+    return arcStart;
+  }
+
+  float getArcSweep() {
+    return arcSweep;
+  }
+
+  /**
+   * @return the speed in degrees per second
+   */
+  float getSpinSpeed() {
+    return spinSpeed;
+  }
+
+  /**
+   * @param spinSpeed the speed in degrees per second
+   */
+  void setSpinSpeed(float spinSpeed) {
+    this.spinSpeed = spinSpeed;
+  }
+
+  double getBarSpinCycleTime() {
+    return barSpinCycleTime;
+  }
+
+  /**
+   * @param barSpinCycleTime the time the bar takes to grow or shrink, in milliseconds
+   */
+  void setBarSpinCycleTime(double barSpinCycleTime) {
+    this.barSpinCycleTime = barSpinCycleTime;
+  }
+
+  boolean isLinearProgress() {
+    return linearProgress;
+  }
+
+  void setLinearProgress(boolean linearProgress) {
+    this.linearProgress = linearProgress;
+    updateArc();
+  }
+
+  WheelEasing getBarGrowthEasing() {
+    return barGrowthEasing;
+  }
+
+  void setBarGrowthEasing(WheelEasing barGrowthEasing) {
+    this.barGrowthEasing = barGrowthEasing;
+  }
+
+  WheelEasing getSweepEasing() {
+    return sweepEasing;
+  }
+
+  WheelEasing getOffsetEasing() {
+    return offsetEasing;
+  }
+
+  WheelSmoothing getSmoothing() {
+    return smoothing;
+  }
+
+  /**
+   * @param smoothing the smoothing of the progress, null to move at the spin speed
+   */
+  void setSmoothing(WheelSmoothing smoothing) {
+    if (smoothing != null && progress != targetProgress) {
+      // Starts smoothing from where the bar is
+      smoothingVelocity = this.smoothing != null ? smoothedVelocity() : 0;
+      smoothingOffset = progress - targetProgress;
+      smoothingStartTime = lastFrameTime;
+    }
+    this.smoothing = smoothing;
+  }
+
+  void setProgressEasing(WheelEasing sweepEasing, WheelEasing offsetEasing) {
+    this.sweepEasing = sweepEasing;
+    this.offsetEasing = offsetEasing;
+    updateArc();
+  }
+}
@@ -0,0 +1,188 @@
+package com.pnikosis.materialishprogress;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.util.AttributeSet;
+import android.util.DisplayMetrics;
+import android.util.TypedValue;
+import java.util.HashMap;
+import java.util.WeakHashMap;
+
+/**
+ * The attributes of a {@link ProgressWheel} from the XML, parsed.
+ *
+ * Parsed attributes are cached per theme, keyed by the configuration of the resources,
+ * the style resource and the attributes set in the layout itself, so inflating
+ * the same wheel again, like in every row of a list, doesn't resolve its
+ * attributes again.
+ */
+final class WheelAttributes {
+  // Several styles per theme is usual, more than this many is unexpected
+  private static final int MAX_CACHED_PER_THEME = 32;
+  private static final String ATTRIBUTE_PREFIX = "matProg_";
+  // The themes are weak keys, the cache of a theme goes with it
+  private static final WeakHashMap<Resources.Theme, HashMap<CacheKey, WheelAttributes>> cache =
+      new WeakHashMap<Resources.Theme, HashMap<CacheKey, WheelAttributes>>();
+
+  final WheelStyle style;
+  // Spin speed in degrees per second
+  final float spinSpeed;
+  final int frameRate;
+  final int barSpinCycleTime;
+  final boolean linearProgress;
+  final boolean sharedTicker;
+  final boolean renderThreadSpin;
+  final boolean cacheRim;
+  final boolean pathRendering;
+  final boolean progressIndeterminate;
+
+  private WheelAttributes(TypedArray a, DisplayMetrics metrics) {
+    // We transform the default values from DIP to pixels
+    int barWidth = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,
+        ProgressWheel.DEFAULT_BAR_WIDTH, metrics);
+    int rimWidth = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,
+        ProgressWheel.DEFAULT_RIM_WIDTH, metrics);
+    int circleRadius = (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP,
+        ProgressWheel.DEFAULT_CIRCLE_RADIUS, metrics);
+
+    circleRadius =
+        (int) a.getDimension(R.styleable.ProgressWheel_matProg_circleRadius, circleRadius);
+
+    boolean fillRadius = a.getBoolean(R.styleable.ProgressWheel_matProg_fillRadius, false);
+
+    barWidth = (int) a.getDimension(R.styleable.ProgressWheel_matProg_barWidth, barWidth);
+
+    rimWidth = (int) a.getDimension(R.styleable.ProgressWheel_matProg_rimWidth, rimWidth);
+
+    spinSpeed = a.getFloat(R.styleable.ProgressWheel_matProg_spinSpeed,
+        WheelAnimator.DEFAULT_SPIN_SPEED / 360.0f) * 360;
+
+    frameRate = Math.max(a.getInt(R.styleable.ProgressWheel_matProg_frameRate, 0), 0);
+
+    barSpinCycleTime = a.getInt(R.styleable.ProgressWheel_matProg_barSpinCycleTime,
+        WheelAnimator.DEFAULT_BAR_SPIN_CYCLE_TIME);
+
+    int barColor =
+        a.getColor(R.styleable.ProgressWheel_matProg_barColor, ProgressWheel.DEFAULT_BAR_COLOR);
+
+    int rimColor =
+        a.getColor(R.styleable.ProgressWheel_matProg_rimColor, ProgressWheel.DEFAULT_RIM_COLOR);
+
+    boolean roundCaps = a.getBoolean(R.styleable.ProgressWheel_matProg_roundCaps, false);
+
+    style = WheelStyle.obtain(circleRadius, barWidth, rimWidth, fillRadius, barColor, rimColor,
+        roundCaps);
+
+    linearProgress = a.getBoolean(R.styleable.ProgressWheel_matProg_linearProgress, false);
+
+    sharedTicker = a.getBoolean(R.styleable.ProgressWheel_matProg_sharedTicker, false);
+
+    renderThreadSpin = a.getBoolean(R.styleable.ProgressWheel_matProg_renderThreadSpin, false);
+
+    cacheRim = a.getBoolean(R.styleable.ProgressWheel_matProg_cacheRim, false);
+
+    pathRendering = a.getBoolean(R.styleable.ProgressWheel_matProg_pathRendering, false);
+
+    progressIndeterminate =
+        a.getBoolean(R.styleable.ProgressWheel_matProg_progressIndeterminate, false);
+  }
+
+  /**
+   * Gets the parsed attributes of a wheel, from the cache if a wheel with the same
+   * style and attributes was already inflated with this theme
+   */
+  static WheelAttributes obtain(Context context, AttributeSet attrs) {
+    Resources.Theme theme = context.getTheme();
+    Configuration configuration = context.getResources().getConfiguration();
+    String attributesKey = attributesKey(attrs);
+
+    synchronized (cache) {
+      HashMap<CacheKey, WheelAttributes> themeCache = cache.get(theme);
+      WheelAttributes attributes = themeCache != null
+          ? themeCache.get(new CacheKey(configuration, attributesKey)) : null;
+      if (attributes != null) {
+        return attributes;
+      }
+    }
+
+    TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.ProgressWheel);
+    WheelAttributes attributes =
+        new WheelAttributes(a, context.getResources().getDisplayMetrics());
+    // Recycle
+    a.recycle();
+
+    synchronized (cache) {
+      HashMap<CacheKey, WheelAttributes> themeCache = cache.get(theme);
+      if (themeCache == null) {
+        themeCache = new HashMap<CacheKey, WheelAttributes>();
+        cache.put(theme, themeCache);
+      } else if (themeCache.size() >= MAX_CACHED_PER_THEME) {
+        themeCache.clear();
+      }
+      // The configuration of the resources changes in place, the key keeps a copy
+      themeCache.put(new CacheKey(new Configuration(configuration), attributesKey), attributes);
+    }
+    return attributes;
+  }
+
+  /**
+   * The key of the attributes set in the layout: the style resource,
+   * and the raw values of the wheel attributes
+   */
+  private static String attributesKey(AttributeSet attrs) {
+    StringBuilder key = new StringBuilder();
+
+    if (attrs != null) {
+      key.append(attrs.getStyleAttribute());
+
+      for (int i = 0, count = attrs.getAttributeCount(); i < count; i++) {
+        String name = attrs.getAttributeName(i);
+        if (name != null && name.startsWith(ATTRIBUTE_PREFIX)) {
+          key.append(';').append(name).append('=').append(attrs.getAttributeValue(i));
+        }
+      }
+    }
+    return key.toString();
+  }
+
+  /**
+   * The attributes of a layout with some configuration, two configurations with
+   * the same hash can give different sizes, so they are compared in full
+   */
+  private static final class CacheKey {
+    final Configuration configuration;
+    final String attributes;
+
+    CacheKey(Configuration configuration, String attributes) {
+      this.configuration = configuration;
+      this.attributes = attributes;
+    }
+
+    @Override public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CacheKey)) {
+        return false;
+      }
+
+      CacheKey other = (CacheKey) o;
+      return configuration.equals(other.configuration) && attributes.equals(other.attributes);
+    }
+
+    @Override public int hashCode() {
+      return 31 * configuration.hashCode() + attributes.hashCode();
+    }
+  }
+
+  /**
+   * Empties the cache, for tests
+   */
+  static void clearCache() {
+    synchronized (cache) {
+      cache.clear();
+    }
+  }
+}
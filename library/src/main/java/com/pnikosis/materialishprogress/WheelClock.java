@@ -0,0 +1,39 @@
+package com.pnikosis.materialishprogress;
+
+import android.os.SystemClock;
+import android.view.View;
+
+/**
+ * Where a {@link ProgressWheel} gets the time from.
+ *
+ * The wheel always uses {@link #SYSTEM}, tests can replace it
+ * to drive the animation frame by frame deterministically.
+ * All the times are in nanoseconds, in the {@link SystemClock#uptimeMillis()} time base.
+ */
+interface WheelClock {
+  long NANOS_PER_MILLI = 1000000L;
+
+  /**
+   * The system uptime, and the drawing time of the view for the frame being drawn
+   */
+  WheelClock SYSTEM = new WheelClock() {
+    @Override public long nanoTime() {
+      return SystemClock.uptimeMillis() * NANOS_PER_MILLI;
+    }
+
+    @Override public long drawingTimeNanos(View view) {
+      // The drawing time is the same for every draw pass in a frame
+      return view.getDrawingTime() * NANOS_PER_MILLI;
+    }
+  };
+
+  /**
+   * @return the current time
+   */
+  long nanoTime();
+
+  /**
+   * @return the time of the frame the view is being drawn for
+   */
+  long drawingTimeNanos(View view);
+}
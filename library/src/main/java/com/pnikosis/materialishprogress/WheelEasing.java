@@ -0,0 +1,103 @@
+package com.pnikosis.materialishprogress;
+
+/**
+ * An easing curve for the {@link ProgressWheel}, precomputed into a lookup table.
+ *
+ * The curve is sampled once when the easing is created, after that
+ * getting a value is a table lookup plus a linear interpolation,
+ * without any transcendental math. Instances are immutable,
+ * so they can be shared by every wheel.
+ */
+public final class WheelEasing {
+  private static final int DEFAULT_SAMPLES = 256;
+
+  /**
+   * The growing and shrinking of the spinning bar, a cosine ease in-out
+   */
+  public static final WheelEasing BAR_GROWTH = fromCurve(new Curve() {
+    @Override public float valueAt(float x) {
+      return (float) Math.cos((x + 1) * Math.PI) / 2 + 0.5f;
+    }
+  });
+
+  /**
+   * The length of the bar in the non linear determinate mode
+   */
+  public static final WheelEasing PROGRESS_SWEEP = power(2.0f);
+
+  /**
+   * The start of the bar in the non linear determinate mode, it moves
+   * faster than the length so the bar seems to be pushed forward
+   */
+  public static final WheelEasing PROGRESS_OFFSET = power(4.0f);
+
+  private final float[] table;
+  private final int lastIndex;
+
+  private WheelEasing(float[] table) {
+    this.table = table;
+    this.lastIndex = table.length - 1;
+  }
+
+  /**
+   * Creates an easing from a curve, sampled with the default resolution
+   *
+   * @param curve the curve, only evaluated while creating the easing
+   */
+  public static WheelEasing fromCurve(Curve curve) {
+    return fromCurve(curve, DEFAULT_SAMPLES);
+  }
+
+  /**
+   * Creates an easing from a curve
+   *
+   * @param curve the curve, only evaluated while creating the easing
+   * @param samples the number of intervals the curve is sampled in, at least 1
+   */
+  public static WheelEasing fromCurve(Curve curve, int samples) {
+    if (samples < 1) {
+      throw new IllegalArgumentException("At least one sample is needed, got " + samples);
+    }
+
+    float[] table = new float[samples + 1];
+    for (int i = 0; i <= samples; i++) {
+      table[i] = curve.valueAt((float) i / samples);
+    }
+    return new WheelEasing(table);
+  }
+
+  /**
+   * A decelerating curve, 1 - (1 - x)^factor
+   */
+  private static WheelEasing power(final float factor) {
+    return fromCurve(new Curve() {
+      @Override public float valueAt(float x) {
+        return (float) (1.0f - Math.pow(1.0f - x, factor));
+      }
+    });
+  }
+
+  /**
+   * @param x the position in the curve, clamped between 0 and 1
+   * @return the interpolated value of the curve
+   */
+  public float valueAt(float x) {
+    if (x <= 0) {
+      return table[0];
+    } else if (x >= 1) {
+      return table[lastIndex];
+    }
+
+    float position = x * lastIndex;
+    int index = (int) position;
+    float fraction = position - index;
+    return table[index] + (table[index + 1] - table[index]) * fraction;
+  }
+
+  /**
+   * A function for x between 0 and 1, usually returning a value between 0 and 1
+   */
+  public interface Curve {
+    float valueAt(float x);
+  }
+}
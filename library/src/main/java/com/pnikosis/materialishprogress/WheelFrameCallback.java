@@ -0,0 +1,54 @@
+package com.pnikosis.materialishprogress;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+
+/**
+ * Drives the {@link ProgressWheel} animation with the display frame clock,
+ * so the frames are vsync aligned and timed with the frame time
+ * instead of the time they happen to be drawn.
+ *
+ * Only one frame is requested at a time, and a frame is only requested
+ * when the wheel has been drawn, so an invisible or detached wheel
+ * doesn't wake up the UI thread.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN) final class WheelFrameCallback
+    implements Choreographer.FrameCallback {
+  private final ProgressWheel wheel;
+  private final Choreographer choreographer;
+  private boolean posted = false;
+
+  /**
+   * Must be created on the UI thread
+   */
+  WheelFrameCallback(ProgressWheel wheel) {
+    this.wheel = wheel;
+    this.choreographer = Choreographer.getInstance();
+  }
+
+  /**
+   * Requests the next frame, if it isn't requested already
+   */
+  void post() {
+    if (!posted) {
+      posted = true;
+      choreographer.postFrameCallback(this);
+    }
+  }
+
+  /**
+   * Cancels the requested frame
+   */
+  void cancel() {
+    if (posted) {
+      posted = false;
+      choreographer.removeFrameCallback(this);
+    }
+  }
+
+  @Override public void doFrame(long frameTimeNanos) {
+    posted = false;
+    wheel.onAnimationFrame(frameTimeNanos);
+  }
+}
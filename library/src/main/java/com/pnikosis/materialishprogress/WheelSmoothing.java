@@ -0,0 +1,121 @@
+package com.pnikosis.materialishprogress;
+
+/**
+ * How the determinate bar of a {@link ProgressWheel} moves to a new progress,
+ * as a damped spring pulling the bar to its target.
+ *
+ * The position of the bar is worked out from the time since the target changed,
+ * not added up frame by frame, so it's the same at any frame rate. When the target
+ * changes while moving, the bar keeps its speed, so quick updates don't make it
+ * stop and start. The bar reaches its target in a bounded time, after which
+ * no more frames are needed. Instances are immutable, so they can be shared.
+ */
+public final class WheelSmoothing {
+  private static final long NANOS_PER_MILLI = 1000000L;
+  // (1 + x) * e^-x falls to 1% at x = 6.64, the critically damped spring from rest
+  private static final double CRITICAL_SETTLE = 6.64;
+  // e^-x falls to 1% at x = 4.6, the envelope of an underdamped spring
+  private static final double ENVELOPE_SETTLE = 4.6;
+  // The bar stops at its target after this many durations at most
+  private static final double MAX_DURATIONS = 1.5;
+  // Closer and slower than this, in degrees and degrees per second, the bar is there
+  private static final double SETTLE_DEGREES = 0.05;
+  private static final double SETTLE_SPEED = 1.0;
+
+  private final long durationNanos;
+  private final double dampingRatio;
+  // Natural frequency, in radians per second
+  private final double omega;
+  // Damped frequency, in radians per second, only for underdamped springs
+  private final double dampedOmega;
+
+  private WheelSmoothing(long durationMillis, double dampingRatio, double omega) {
+    this.durationNanos = durationMillis * NANOS_PER_MILLI;
+    this.dampingRatio = dampingRatio;
+    this.omega = omega;
+    this.dampedOmega = omega * Math.sqrt(Math.max(1 - dampingRatio * dampingRatio, 0));
+  }
+
+  /**
+   * The bar moves to its target as fast as possible without going past it
+   *
+   * @param durationMillis the time to get from rest to 99% of the way, more than 0
+   */
+  public static WheelSmoothing criticallyDamped(long durationMillis) {
+    checkDuration(durationMillis);
+    return new WheelSmoothing(durationMillis, 1, CRITICAL_SETTLE * 1000 / durationMillis);
+  }
+
+  /**
+   * The bar goes past its target and bounces back, settling on it
+   *
+   * @param durationMillis the time for the bounces to fall under 1% of the way, more than 0
+   * @param dampingRatio how fast the bounces fade, between 0 and 1 (both excluded),
+   * lower values bounce more
+   */
+  public static WheelSmoothing spring(long durationMillis, float dampingRatio) {
+    checkDuration(durationMillis);
+    if (!(dampingRatio > 0 && dampingRatio < 1)) {
+      throw new IllegalArgumentException(
+          "The damping ratio must be between 0 and 1, got " + dampingRatio);
+    }
+    return new WheelSmoothing(durationMillis, dampingRatio,
+        ENVELOPE_SETTLE * 1000 / (dampingRatio * durationMillis));
+  }
+
+  private static void checkDuration(long durationMillis) {
+    if (durationMillis <= 0) {
+      throw new IllegalArgumentException("The duration must be positive, got " + durationMillis);
+    }
+  }
+
+  /**
+   * @return the duration, in milliseconds
+   */
+  public long getDuration() {
+    return durationNanos / NANOS_PER_MILLI;
+  }
+
+  /**
+   * @param offset the distance to the target when it was set, in degrees
+   * @param velocity the velocity when the target was set, in degrees per second
+   * @param seconds the time since the target was set
+   * @return the distance to the target at that time
+   */
+  double offsetAt(double offset, double velocity, double seconds) {
+    if (dampedOmega == 0) {
+      return (offset + (velocity + omega * offset) * seconds) * Math.exp(-omega * seconds);
+    }
+
+    double decay = dampingRatio * omega;
+    double sine = (velocity + decay * offset) / dampedOmega;
+    double angle = dampedOmega * seconds;
+    return Math.exp(-decay * seconds) * (offset * Math.cos(angle) + sine * Math.sin(angle));
+  }
+
+  /**
+   * @return the velocity at that time, in degrees per second
+   * @see #offsetAt(double, double, double)
+   */
+  double velocityAt(double offset, double velocity, double seconds) {
+    if (dampedOmega == 0) {
+      return (velocity - omega * (velocity + omega * offset) * seconds)
+          * Math.exp(-omega * seconds);
+    }
+
+    double decay = dampingRatio * omega;
+    double sine = (velocity + decay * offset) / dampedOmega;
+    double angle = dampedOmega * seconds;
+    return Math.exp(-decay * seconds)
+        * ((sine * dampedOmega - decay * offset) * Math.cos(angle)
+        - (offset * dampedOmega + decay * sine) * Math.sin(angle));
+  }
+
+  /**
+   * @return true if the bar can stop at its target
+   */
+  boolean isSettled(double offset, double velocity, long elapsedNanos) {
+    return elapsedNanos >= durationNanos * MAX_DURATIONS
+        || (Math.abs(offset) < SETTLE_DEGREES && Math.abs(velocity) < SETTLE_SPEED);
+  }
+}
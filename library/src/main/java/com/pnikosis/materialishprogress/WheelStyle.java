@@ -0,0 +1,187 @@
+package com.pnikosis.materialishprogress;
+
+import android.graphics.Paint;
+import android.graphics.Paint.Style;
+import android.graphics.Shader;
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * The look of a {@link ProgressWheel}: its sizes, colors and the paints drawing them.
+ *
+ * Wheels with the same look share the same style, obtained with
+ * {@link #obtain(int, int, int, boolean, int, int, boolean)}, so a list with hundreds of
+ * wheels holds a single pair of paints. A shared style never changes, a wheel
+ * changing its look gets its own copy first, with {@link #copy()},
+ * and changes that copy from then on.
+ */
+final class WheelStyle {
+  // The shared styles, kept while a wheel uses them
+  private static final WeakHashMap<WheelStyle, WeakReference<WheelStyle>> sharedStyles =
+      new WeakHashMap<WheelStyle, WeakReference<WheelStyle>>();
+
+  //Sizes, in pixels
+  int circleRadius;
+  int barWidth;
+  int rimWidth;
+  boolean fillRadius;
+  //Colors
+  int barColor;
+  int rimColor;
+  // If the ends of the bar are rounded
+  boolean roundCaps;
+
+  //Paints, null until the style is shared or copied
+  Paint barPaint;
+  Paint rimPaint;
+
+  private boolean shared = false;
+
+  private WheelStyle(int circleRadius, int barWidth, int rimWidth, boolean fillRadius,
+      int barColor, int rimColor, boolean roundCaps) {
+    this.circleRadius = circleRadius;
+    this.barWidth = barWidth;
+    this.rimWidth = rimWidth;
+    this.fillRadius = fillRadius;
+    this.barColor = barColor;
+    this.rimColor = rimColor;
+    this.roundCaps = roundCaps;
+  }
+
+  /**
+   * Gets the shared style with the given values, creating it if no wheel uses it yet
+   */
+  static WheelStyle obtain(int circleRadius, int barWidth, int rimWidth, boolean fillRadius,
+      int barColor, int rimColor, boolean roundCaps) {
+    WheelStyle style = new WheelStyle(circleRadius, barWidth, rimWidth, fillRadius, barColor,
+        rimColor, roundCaps);
+
+    synchronized (sharedStyles) {
+      WeakReference<WheelStyle> reference = sharedStyles.get(style);
+      WheelStyle sharedStyle = reference != null ? reference.get() : null;
+      if (sharedStyle != null) {
+        return sharedStyle;
+      }
+
+      style.setupPaints();
+      style.shared = true;
+      sharedStyles.put(style, new WeakReference<WheelStyle>(style));
+      return style;
+    }
+  }
+
+  /**
+   * @return a copy of this style that only the caller uses, so it can be changed
+   */
+  WheelStyle copy() {
+    WheelStyle style = new WheelStyle(circleRadius, barWidth, rimWidth, fillRadius, barColor,
+        rimColor, roundCaps);
+    style.setupPaints();
+    return style;
+  }
+
+  /**
+   * @return true if the style can be used by several wheels, so it can't be changed
+   */
+  boolean isShared() {
+    return shared;
+  }
+
+  private void setupPaints() {
+    barPaint = new Paint();
+    barPaint.setColor(barColor);
+    barPaint.setAntiAlias(true);
+    barPaint.setStyle(Style.STROKE);
+    barPaint.setStrokeWidth(barWidth);
+    barPaint.setStrokeCap(roundCaps ? Paint.Cap.ROUND : Paint.Cap.BUTT);
+
+    rimPaint = new Paint();
+    rimPaint.setColor(rimColor);
+    rimPaint.setAntiAlias(true);
+    rimPaint.setStyle(Style.STROKE);
+    rimPaint.setStrokeWidth(rimWidth);
+  }
+
+  //----------------------------------
+  //Setters, only for styles that aren't shared
+  //----------------------------------
+
+  void setCircleRadius(int circleRadius) {
+    checkNotShared();
+    this.circleRadius = circleRadius;
+  }
+
+  void setBarWidth(int barWidth) {
+    checkNotShared();
+    this.barWidth = barWidth;
+    barPaint.setStrokeWidth(barWidth);
+  }
+
+  void setRimWidth(int rimWidth) {
+    checkNotShared();
+    this.rimWidth = rimWidth;
+    rimPaint.setStrokeWidth(rimWidth);
+  }
+
+  void setBarColor(int barColor) {
+    checkNotShared();
+    this.barColor = barColor;
+    barPaint.setColor(barColor);
+  }
+
+  void setRimColor(int rimColor) {
+    checkNotShared();
+    this.rimColor = rimColor;
+    rimPaint.setColor(rimColor);
+  }
+
+  void setRoundCaps(boolean roundCaps) {
+    checkNotShared();
+    this.roundCaps = roundCaps;
+    barPaint.setStrokeCap(roundCaps ? Paint.Cap.ROUND : Paint.Cap.BUTT);
+  }
+
+  /**
+   * Sets a shader to the bar paint, shaders depend on the bounds of each wheel,
+   * so they aren't part of the shared look
+   */
+  void setBarShader(Shader shader) {
+    checkNotShared();
+    barPaint.setShader(shader);
+  }
+
+  private void checkNotShared() {
+    if (shared) {
+      throw new IllegalStateException("A shared style can't be changed, copy it first");
+    }
+  }
+
+  @Override public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof WheelStyle)) {
+      return false;
+    }
+
+    WheelStyle other = (WheelStyle) o;
+    return circleRadius == other.circleRadius
+        && barWidth == other.barWidth
+        && rimWidth == other.rimWidth
+        && fillRadius == other.fillRadius
+        && barColor == other.barColor
+        && rimColor == other.rimColor
+        && roundCaps == other.roundCaps;
+  }
+
+  @Override public int hashCode() {
+    int result = circleRadius;
+    result = 31 * result + barWidth;
+    result = 31 * result + rimWidth;
+    result = 31 * result + (fillRadius ? 1 : 0);
+    result = 31 * result + barColor;
+    result = 31 * result + rimColor;
+    result = 31 * result + (roundCaps ? 1 : 0);
+    return result;
+  }
+}
@@ -0,0 +1,22 @@
+package com.pnikosis.materialishprogress;
+
+import android.view.View;
+
+/**
+ * A clock that only moves when the test says so
+ */
+class FakeWheelClock implements WheelClock {
+  private long now = 0;
+
+  void advanceMillis(long millis) {
+    now += millis * NANOS_PER_MILLI;
+  }
+
+  @Override public long nanoTime() {
+    return now;
+  }
+
+  @Override public long drawingTimeNanos(View view) {
+    return now;
+  }
+}
@@ -0,0 +1,82 @@
+package com.pnikosis.materialishprogress;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricGradleTestRunner.class) @Config(constants = BuildConfig.class, sdk = 21)
+public class ProgressDispatcherTest {
+  private WheelAnimator animator;
+  private ProgressDispatcher dispatcher;
+  private final List<Float> values = new ArrayList<Float>();
+  private final List<Double> preciseValues = new ArrayList<Double>();
+
+  @Before public void setUp() {
+    ProgressWheel wheel = new ProgressWheel(RuntimeEnvironment.application);
+    wheel.setClock(new FakeWheelClock());
+    animator = new WheelAnimator();
+    dispatcher = new ProgressDispatcher(wheel, animator);
+    dispatcher.setCallback(new ProgressWheel.ProgressCallback() {
+      @Override public void onProgressUpdate(float progress) {
+        values.add(progress);
+      }
+    }, true, 0);
+  }
+
+  @Test public void coalescedCallbackGetsEveryCycle() {
+    dispatcher.dispatchCycle(1, 0);
+    dispatcher.run();
+    dispatcher.dispatchCycle(2, 0);
+    dispatcher.dispatchCycle(3, 0);
+    dispatcher.run();
+
+    assertEquals(Arrays.asList(-1.0f, -1.0f, -1.0f), values);
+  }
+
+  @Test public void coalescedCallbackOnlyGetsChangedValues() {
+    dispatcher.dispatchProgress(90);
+    dispatcher.dispatchProgress(180);
+    dispatcher.run();
+    dispatcher.dispatchProgress(180);
+    dispatcher.run();
+    dispatcher.dispatchCycle(1, 0);
+    dispatcher.dispatchProgress(180);
+    dispatcher.run();
+
+    assertEquals(Arrays.asList(0.5f, -1.0f, 0.5f), values);
+  }
+
+  @Test public void preciseCallbackFollowsTheEasedArc() {
+    dispatcher.setPreciseCallback(new ProgressWheel.PreciseProgressCallback() {
+      @Override public void onProgressUpdate(double progress) {
+        preciseValues.add(progress);
+      }
+    });
+    dispatcher.setPixelStep(3);
+    dispatcher.setExactTarget(1, 360);
+    animator.setLinearProgress(false);
+
+    dispatchInstantProgress(0);
+    // The eased arc moves faster than the progress when it starts
+    dispatchInstantProgress(1);
+    dispatchInstantProgress(340);
+    // And slower when it ends, it moves less than a degree
+    dispatchInstantProgress(350);
+    dispatchInstantProgress(360);
+
+    assertEquals(Arrays.asList(0.0, 1 / 360.0, 340 / 360.0, 1.0), preciseValues);
+  }
+
+  private void dispatchInstantProgress(float degrees) {
+    animator.setInstantProgress(degrees, 0);
+    dispatcher.dispatchProgress(animator.getProgress());
+  }
+}
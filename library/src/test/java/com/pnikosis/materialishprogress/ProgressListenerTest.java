@@ -0,0 +1,93 @@
+package com.pnikosis.materialishprogress;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricGradleTestRunner.class) @Config(constants = BuildConfig.class, sdk = 21)
+public class ProgressListenerTest {
+  private FakeWheelClock clock;
+  private RecordingCanvas canvas;
+  private ProgressWheel wheel;
+  private final List<String> events = new ArrayList<String>();
+
+  @Before public void setUp() {
+    clock = new FakeWheelClock();
+    canvas = new RecordingCanvas();
+    wheel = new ProgressWheel(RuntimeEnvironment.application);
+    wheel.setClock(clock);
+    wheel.setProgressListener(new ProgressWheel.ProgressListener() {
+      @Override public void onTargetReached(float progress, long uptimeMillis) {
+        events.add("target " + progress + " at " + uptimeMillis);
+      }
+
+      @Override public void onThresholdCrossed(float threshold, boolean increasing,
+          long uptimeMillis) {
+        events.add((increasing ? "over " : "under ") + threshold + " at " + uptimeMillis);
+      }
+
+      @Override public void onSpinCycleCompleted(int cycle, long uptimeMillis) {
+        events.add("cycle " + cycle);
+      }
+
+      @Override public void onModeChanged(boolean spinning, long uptimeMillis) {
+        events.add((spinning ? "spinning" : "determinate") + " at " + uptimeMillis);
+      }
+    });
+  }
+
+  @Test public void thresholdsAndTarget() {
+    wheel.addProgressThreshold(0.5f);
+    wheel.addProgressThreshold(0.25f);
+    wheel.addProgressThreshold(0.75f);
+    wheel.setLinearProgress(true);
+    wheel.setSpinSpeed(1.0f);
+    wheel.setProgress(0.5f);
+
+    frame(300);
+    frame(300);
+    wheel.setInstantProgress(0.1f);
+
+    assertEquals(Arrays.asList("over 0.25 at 300", "over 0.5 at 600", "target 0.5 at 600",
+        "under 0.5 at 600", "under 0.25 at 600", "target 0.1 at 600"), events);
+  }
+
+  @Test public void spinCyclesAndModes() {
+    wheel.setSpinSpeed(1.0f);
+    wheel.spin();
+    // The bar growth moves the wheel too, three seconds are more than two turns
+    for (int i = 0; i < 300; i++) {
+      frame(10);
+    }
+    wheel.setProgress(0.5f);
+
+    assertEquals("spinning at 0", events.get(0));
+    assertEquals("cycle 1", events.get(1));
+    assertEquals("cycle 2", events.get(2));
+    assertEquals("determinate at 3000", events.get(events.size() - 1));
+
+    // Spinning again counts the turns from the start
+    wheel.stopSpinning();
+    events.clear();
+    wheel.spin();
+    frame(10);
+    assertEquals(Arrays.asList("spinning at 3000"), events);
+    for (int i = 0; i < 300 && events.size() < 2; i++) {
+      frame(10);
+    }
+    assertEquals("cycle 1", events.get(1));
+  }
+
+  private void frame(long millis) {
+    clock.advanceMillis(millis);
+    wheel.onDraw(canvas);
+  }
+}
@@ -0,0 +1,43 @@
+package com.pnikosis.materialishprogress;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricGradleTestRunner.class) @Config(constants = BuildConfig.class, sdk = 21)
+public class ProgressSinkTest {
+  private ProgressWheel wheel;
+  private ProgressSink sink;
+
+  @Before public void setUp() {
+    wheel = new ProgressWheel(RuntimeEnvironment.application);
+    wheel.setClock(new FakeWheelClock());
+    sink = wheel.getProgressSink();
+  }
+
+  @Test public void unchangedValueDoesNotKeepTheSinkAwake() {
+    // The wheel is already at 0, nothing animates and no frame comes
+    sink.setProgress(0.0f);
+    ShadowLooper.runUiThreadTasks();
+
+    sink.setProgress(0.5f);
+    ShadowLooper.runUiThreadTasks();
+    assertEquals(0.5, wheel.getExactProgress(), 0);
+  }
+
+  @Test public void valueSetOnTheUiThreadDoesNotKeepTheSinkAwake() {
+    wheel.setInstantProgress(0.25f);
+    sink.setProgress(0.25f);
+    ShadowLooper.runUiThreadTasks();
+
+    sink.setProgress(0.75f);
+    ShadowLooper.runUiThreadTasks();
+    assertEquals(0.75, wheel.getExactProgress(), 0.0001);
+  }
+}
@@ -0,0 +1,102 @@
+package com.pnikosis.materialishprogress;
+
+import android.graphics.drawable.Drawable;
+import android.provider.Settings;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(RobolectricGradleTestRunner.class) @Config(constants = BuildConfig.class, sdk = 21)
+public class ProgressWheelDrawableTest {
+  private ProgressWheelDrawable drawable;
+  private RecordingCanvas canvas;
+  private FakeWheelClock clock;
+  private int invalidations;
+
+  @Before public void setUp() {
+    // The policy has to watch the settings of the application of this test
+    MotionPolicy.reset();
+    canvas = new RecordingCanvas();
+    clock = new FakeWheelClock();
+    drawable = new ProgressWheelDrawable(RuntimeEnvironment.application);
+    drawable.setClock(clock);
+    drawable.setBounds(0, 0, 100, 100);
+    drawable.setCallback(new Drawable.Callback() {
+      @Override public void invalidateDrawable(Drawable who) {
+        invalidations++;
+      }
+
+      @Override public void scheduleDrawable(Drawable who, Runnable what, long when) {
+      }
+
+      @Override public void unscheduleDrawable(Drawable who, Runnable what) {
+      }
+    });
+  }
+
+  @Test public void spinFollowsTheClock() {
+    drawable.start();
+    clock.advanceMillis(50);
+    assertEquals(Arrays.asList(arc(-78.5f, 16, "AA000000")), draw());
+    clock.advanceMillis(50);
+    assertEquals(Arrays.asList(arc(-67, 16, "AA000000")), draw());
+  }
+
+  @Test public void nothingIsAnimatedWithoutAnimations() {
+    setAnimatorScale(0);
+    try {
+      drawable.setProgress(0.5f);
+      invalidations = 0;
+      assertEquals(Arrays.asList(arc(247.5f, 270, "AA000000")), draw());
+      assertEquals(0, invalidations);
+
+      drawable.start();
+      invalidations = 0;
+      clock.advanceMillis(500);
+      assertEquals(Arrays.asList(arc(0, 135, "AA000000")), draw());
+      assertEquals(0, invalidations);
+    } finally {
+      setAnimatorScale(1);
+    }
+  }
+
+  @Test public void alphaScalesTheColors() {
+    // The default rim is transparent, and stays so
+    drawable.setAlpha(255);
+    assertEquals(Arrays.asList(bar("AA000000")), draw());
+
+    drawable.setAlpha(128);
+    assertEquals(Arrays.asList(bar("55000000")), draw());
+
+    drawable.setBarColor(0xFFFF0000);
+    assertEquals(Arrays.asList(bar("80FF0000")), draw());
+    assertEquals(0xFFFF0000, drawable.getBarColor());
+  }
+
+  private List<String> draw() {
+    drawable.draw(canvas);
+    return canvas.takeCalls();
+  }
+
+  private static String bar(String color) {
+    return arc(-90, 0, color);
+  }
+
+  private static String arc(float start, float sweep, String color) {
+    return String.format(java.util.Locale.US,
+        "drawArc 4,4,96,96 start=%.2f sweep=%.2f color=%s width=4", start, sweep, color);
+  }
+
+  private static void setAnimatorScale(float scale) {
+    Settings.Global.putFloat(RuntimeEnvironment.application.getContentResolver(),
+        Settings.Global.ANIMATOR_DURATION_SCALE, scale);
+    MotionPolicy.getInstance(RuntimeEnvironment.application).refresh();
+  }
+}
@@ -0,0 +1,272 @@
+package com.pnikosis.materialishprogress;
+
+import android.provider.Settings;
+import android.view.View;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Golden traces of the draw calls of the wheel, frame by frame
+ */
+@RunWith(RobolectricGradleTestRunner.class) @Config(constants = BuildConfig.class, sdk = 21)
+public class ProgressWheelTraceTest {
+  private static final String RIM =
+      "drawArc 30,30,70,70 start=360.00 sweep=360.00 color=FF0000FF width=4";
+
+  private FakeWheelClock clock;
+  private RecordingCanvas canvas;
+  private ProgressWheel wheel;
+
+  @Before public void setUp() {
+    // The policy has to watch the settings of the application of this test
+    MotionPolicy.reset();
+    clock = new FakeWheelClock();
+    canvas = new RecordingCanvas();
+
+    // Without attributes the sizes are in pixels: 28 radius, 4 wide bar and rim
+    wheel = new ProgressWheel(RuntimeEnvironment.application);
+    wheel.setClock(clock);
+    wheel.setBarColor(0xFFFF0000);
+    wheel.setRimColor(0xFF0000FF);
+    wheel.measure(View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.EXACTLY),
+        View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.EXACTLY));
+    wheel.layout(0, 0, 100, 100);
+  }
+
+  @Test public void linearProgressTrace() {
+    wheel.setLinearProgress(true);
+    // Half a turn per second
+    wheel.setSpinSpeed(0.5f);
+    wheel.setProgress(0.25f);
+
+    assertFrame(100, RIM, bar(-90, 18));
+    assertFrame(100, RIM, bar(-90, 36));
+    assertFrame(100, RIM, bar(-90, 54));
+    assertFrame(100, RIM, bar(-90, 72));
+    assertFrame(100, RIM, bar(-90, 90));
+    assertFrame(100, RIM, bar(-90, 90));
+  }
+
+  @Test public void spinTrace() {
+    wheel.spin();
+
+    // The bar doesn't grow during the first 200 ms
+    assertFrame(50, RIM, bar(-78.5f, 16));
+    assertFrame(50, RIM, bar(-67, 16));
+    assertFrame(50, RIM, bar(-55.5f, 16));
+    assertFrame(50, RIM, bar(-44, 16));
+  }
+
+  @Test public void drawingTwiceInAFrameDoesNotMoveTheWheel() {
+    wheel.spin();
+
+    assertFrame(50, RIM, bar(-78.5f, 16));
+    assertFrame(0, RIM, bar(-78.5f, 16));
+  }
+
+  @Test public void transparentRimIsNotDrawn() {
+    wheel.setRimColor(0x00FFFFFF);
+    wheel.setInstantProgress(0.5f);
+
+    // Non linear, the bar is at 3/4 of the wheel halfway through
+    assertFrame(16, bar(247.5f, 270));
+  }
+
+  @Test public void cachedRimIsDrawnAsABitmap() {
+    wheel.setRimCacheEnabled(true);
+    wheel.setInstantProgress(1.0f);
+
+    assertFrame(16, "drawBitmap 46x46 at 27,27", bar(270, 360));
+  }
+
+  @Test public void ringsAreDrawnInsideTheWheel() {
+    ProgressRing ring = wheel.addRing(0xFF00FF00);
+    ring.setInstantProgress(0.5f);
+
+    assertFrame(16, RIM, bar(-90, 0),
+        "drawArc 38,38,62,62 start=247.50 sweep=270.00 color=FF00FF00 width=4");
+  }
+
+  @Test public void ringsHaveTheirOwnSmoothing() {
+    wheel.setProgressSmoothing(WheelSmoothing.criticallyDamped(1000));
+    ProgressRing smooth = wheel.addRing(0xFF00FF00);
+    ProgressRing quick = wheel.addRing(0xFF00FFFF);
+    assertEquals(wheel.getProgressSmoothing(), smooth.getProgressSmoothing());
+
+    quick.setProgressSmoothing(WheelSmoothing.criticallyDamped(100));
+    smooth.setProgress(1.0f);
+    quick.setProgress(1.0f);
+    // The quick ring stops after 150 ms at most
+    for (int i = 0; i < 10; i++) {
+      clock.advanceMillis(20);
+      wheel.onDraw(canvas);
+    }
+
+    assertEquals(1.0f, quick.getProgress(), 0);
+    assertTrue(smooth.getProgress() < 1.0f);
+  }
+
+  @Test public void ringProgressIsClamped() {
+    ProgressRing ring = wheel.addRing(0xFF00FF00);
+    ring.setInstantProgress(0.5f);
+    ring.setInstantProgress(Float.NaN);
+    assertEquals(0.0f, ring.getProgress(), 0);
+
+    ring.setInstantProgress(2.0f);
+    assertEquals(1.0f, ring.getProgress(), 0);
+  }
+
+  @Test public void barColorsChangeOnEachSpinCycle() {
+    wheel.setBarColors(0xFFFF0000, 0xFF00FF00);
+    wheel.spin();
+    assertEquals(0xFFFF0000, wheel.getBarColor());
+
+    // A turn takes less than two seconds
+    for (int i = 0; i < 40 && wheel.getBarColor() == 0xFFFF0000; i++) {
+      clock.advanceMillis(50);
+      wheel.onDraw(canvas);
+    }
+    assertEquals(0xFF00FF00, wheel.getBarColor());
+
+    wheel.setBarColor(0xFF0000FF);
+    wheel.spin();
+    assertEquals(0xFF0000FF, wheel.getBarColor());
+  }
+
+  @Test public void preciseCallbackOnlyGetsVisibleChanges() {
+    final List<Double> values = new ArrayList<Double>();
+    wheel.setLinearProgress(true);
+    // Half a turn per second, 0.9 degrees per frame
+    wheel.setSpinSpeed(0.5f);
+    wheel.setPreciseCallback(new ProgressWheel.PreciseProgressCallback() {
+      @Override public void onProgressUpdate(double progress) {
+        values.add(progress);
+      }
+    });
+    values.clear();
+
+    wheel.setProgress(1, 3);
+    int frames = 0;
+    while (wheel.getProgress() < 1.0f / 3) {
+      clock.advanceMillis(5);
+      wheel.onDraw(canvas);
+      frames++;
+    }
+
+    // The outer edge of the bar is 22 pixels away from the center
+    double pixel = 180 / (Math.PI * 22) / 360;
+    for (int i = 1; i < values.size() - 1; i++) {
+      assertTrue(values.get(i) - values.get(i - 1) >= pixel - 1e-6);
+    }
+    assertTrue(values.size() < frames);
+    assertEquals(1.0 / 3, values.get(values.size() - 1), 0);
+  }
+
+  @Test public void progressIsClamped() {
+    wheel.setProgress(1.5f);
+    assertEquals(1.0, wheel.getExactProgress(), 0);
+
+    wheel.setInstantProgress(15, 10);
+    assertEquals(1.0f, wheel.getProgress(), 0);
+
+    wheel.setProgress(-1, 10);
+    assertEquals(0.0, wheel.getExactProgress(), 0);
+  }
+
+  @Test public void pathRenderingOnlyRotatesPlainBars() {
+    wheel.setPathRenderingEnabled(true);
+    wheel.spin();
+
+    // The gradient stays at the top, the bar path is turned instead of the canvas
+    wheel.setBarGradient(0xFFFF0000, 0xFF00FF00, 0xFFFF0000);
+    assertFrame(50, "drawPath color=FF0000FF", "drawPath color=FFFF0000");
+
+    wheel.setBarGradient((int[]) null);
+    assertFrame(50, "drawPath color=FF0000FF", "rotate -67.00", "drawPath color=FFFF0000");
+  }
+
+  @Test public void pathRenderingBuildsOvalBarsInPlace() {
+    ProgressWheel.WheelSavedState state =
+        (ProgressWheel.WheelSavedState) wheel.onSaveInstanceState();
+    // The attribute isn't settable in code
+    state.fillRadius = true;
+    wheel.onRestoreInstanceState(state);
+    wheel.measure(View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.EXACTLY),
+        View.MeasureSpec.makeMeasureSpec(60, View.MeasureSpec.EXACTLY));
+    wheel.layout(0, 0, 100, 60);
+    wheel.setPathRenderingEnabled(true);
+    wheel.spin();
+
+    // Turning the bar of an oval would move it off the rim
+    assertFrame(50, "drawPath color=FF0000FF", "drawPath color=FFFF0000");
+    assertFrame(50, "drawPath color=FF0000FF", "drawPath color=FFFF0000");
+  }
+
+  @Test public void barWidthMovesTheBoundsWithoutALayout() {
+    wheel.setBarWidth(6);
+
+    assertFalse(wheel.isLayoutRequested());
+    assertFrame(16, "drawArc 34,34,66,66 start=360.00 sweep=360.00 color=FF0000FF width=4",
+        "drawArc 34,34,66,66 start=-90.00 sweep=0.00 color=FFFF0000 width=6");
+  }
+
+  @Test public void radiusOnlyRequestsALayoutWhenTheSizeChanges() {
+    // The size is exact, the radius doesn't change it
+    wheel.setCircleRadius(24);
+    assertFalse(wheel.isLayoutRequested());
+    assertFrame(16, "drawArc 34,34,66,66 start=360.00 sweep=360.00 color=FF0000FF width=4",
+        "drawArc 34,34,66,66 start=-90.00 sweep=0.00 color=FFFF0000 width=4");
+
+    wheel.measure(View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.AT_MOST),
+        View.MeasureSpec.makeMeasureSpec(100, View.MeasureSpec.AT_MOST));
+    wheel.layout(0, 0, wheel.getMeasuredWidth(), wheel.getMeasuredHeight());
+    wheel.setCircleRadius(20);
+    assertTrue(wheel.isLayoutRequested());
+  }
+
+  @Test public void progressIsDrawnStillWithoutAnimations() {
+    setAnimatorScale(0);
+
+    wheel.setProgress(0.5f);
+    // Non linear, the bar is at 3/4 of the wheel halfway through
+    assertFrame(16, RIM, bar(247.5f, 270));
+    assertEquals(0.5f, wheel.getProgress(), 0);
+
+    wheel.spin();
+    assertFrame(16, RIM, bar(0, 135));
+    assertFrame(500, RIM, bar(0, 135));
+
+    // Attached wheels are told by the policy, it starts spinning from there
+    setAnimatorScale(1);
+    wheel.onMotionPolicyChanged();
+    assertFrame(50, RIM, bar(-78.5f, 16));
+  }
+
+  private static void setAnimatorScale(float scale) {
+    Settings.Global.putFloat(RuntimeEnvironment.application.getContentResolver(),
+        Settings.Global.ANIMATOR_DURATION_SCALE, scale);
+    MotionPolicy.getInstance(RuntimeEnvironment.application).refresh();
+  }
+
+  private void assertFrame(long millis, String... expected) {
+    clock.advanceMillis(millis);
+    wheel.onDraw(canvas);
+    assertEquals(Arrays.asList(expected), canvas.takeCalls());
+  }
+
+  private static String bar(float start, float sweep) {
+    return String.format(java.util.Locale.US,
+        "drawArc 30,30,70,70 start=%.2f sweep=%.2f color=FFFF0000 width=4", start, sweep);
+  }
+}
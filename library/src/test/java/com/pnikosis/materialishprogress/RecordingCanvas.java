@@ -0,0 +1,50 @@
+package com.pnikosis.materialishprogress;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.RectF;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An offscreen canvas that records the draw calls it gets,
+ * one line per call with its parameters
+ */
+class RecordingCanvas extends Canvas {
+  private final List<String> calls = new ArrayList<String>();
+
+  /**
+   * @return the draw calls since the last time they were taken
+   */
+  List<String> takeCalls() {
+    List<String> taken = new ArrayList<String>(calls);
+    calls.clear();
+    return taken;
+  }
+
+  @Override public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter,
+      Paint paint) {
+    record("drawArc %.0f,%.0f,%.0f,%.0f start=%.2f sweep=%.2f color=%08X width=%.0f", oval.left,
+        oval.top, oval.right, oval.bottom, startAngle, sweepAngle, paint.getColor(),
+        paint.getStrokeWidth());
+  }
+
+  @Override public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+    record("drawBitmap %dx%d at %.0f,%.0f", bitmap.getWidth(), bitmap.getHeight(), left, top);
+  }
+
+  @Override public void drawPath(Path path, Paint paint) {
+    record("drawPath color=%08X", paint.getColor());
+  }
+
+  @Override public void rotate(float degrees) {
+    record("rotate %.2f", degrees);
+  }
+
+  private void record(String format, Object... args) {
+    calls.add(String.format(Locale.US, format, args));
+  }
+}
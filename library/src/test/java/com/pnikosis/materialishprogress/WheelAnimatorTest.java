@@ -0,0 +1,100 @@
+package com.pnikosis.materialishprogress;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WheelAnimatorTest {
+  private static final long FRAME = 16666667L;
+  private static final float DELTA = 0.0001f;
+
+  private WheelAnimator animator;
+
+  @Before public void setUp() {
+    animator = new WheelAnimator();
+  }
+
+  @Test public void sameFrameTimeDoesNotMoveTheAnimation() {
+    animator.spin(0);
+    animator.update(FRAME);
+    float start = animator.getArcStart();
+    float sweep = animator.getArcSweep();
+
+    assertTrue(animator.update(FRAME));
+    assertEquals(start, animator.getArcStart(), DELTA);
+    assertEquals(sweep, animator.getArcSweep(), DELTA);
+  }
+
+  @Test public void spinAdvancesWithSpinSpeed() {
+    animator.setSpinSpeed(360.0f);
+    animator.spin(0);
+    animator.update(100 * 1000000L);
+
+    // Bar growth is paused for the first 200 ms
+    assertEquals(36.0f, animator.getProgress(), DELTA);
+    assertEquals(36.0f - 90, animator.getArcStart(), DELTA);
+    assertEquals(16.0f, animator.getArcSweep(), DELTA);
+  }
+
+  @Test public void spinCountsCompletedCycles() {
+    animator.setSpinSpeed(360.0f);
+    animator.spin(0);
+    for (long time = FRAME; time < 2500 * 1000000L; time += FRAME) {
+      animator.update(time);
+    }
+
+    assertTrue(animator.getCompletedCycles() >= 2);
+
+    animator.stopSpinning();
+    animator.spin(2500 * 1000000L);
+    assertEquals(0, animator.getCompletedCycles());
+  }
+
+  @Test public void progressReachesTargetAndStops() {
+    animator.setLinearProgress(true);
+    animator.setSpinSpeed(360.0f);
+    assertTrue(animator.setTargetProgress(180.0f, 0));
+
+    assertTrue(animator.update(250 * 1000000L));
+    assertEquals(90.0f, animator.getProgress(), DELTA);
+    assertEquals(-90.0f, animator.getArcStart(), DELTA);
+    assertEquals(90.0f, animator.getArcSweep(), DELTA);
+
+    animator.update(1000 * 1000000L);
+    assertEquals(180.0f, animator.getProgress(), DELTA);
+    assertFalse(animator.update(1100 * 1000000L));
+    assertFalse(animator.isRunning());
+  }
+
+  @Test public void settingTheSameTargetIsNotAChange() {
+    assertTrue(animator.setTargetProgress(90.0f, 0));
+    assertFalse(animator.setTargetProgress(90.0f, 0));
+  }
+
+  @Test public void nonLinearProgressEasesTheArc() {
+    animator.setInstantProgress(180.0f, 0);
+
+    assertEquals(270.0f, animator.getArcSweep(), DELTA);
+    assertEquals(337.5f - 90, animator.getArcStart(), DELTA);
+  }
+
+  @Test public void timeGoingBackwardsIsIgnored() {
+    animator.setLinearProgress(true);
+    animator.setTargetProgress(360.0f, 1000 * 1000000L);
+
+    animator.update(500 * 1000000L);
+    assertEquals(0.0f, animator.getProgress(), DELTA);
+  }
+
+  @Test public void settingProgressStopsSpinning() {
+    animator.spin(0);
+    animator.update(FRAME);
+    animator.setTargetProgress(90.0f, FRAME);
+
+    assertFalse(animator.isSpinning());
+    assertEquals(0.0f, animator.getProgress(), DELTA);
+  }
+}
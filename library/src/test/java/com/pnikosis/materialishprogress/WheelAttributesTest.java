@@ -0,0 +1,54 @@
+package com.pnikosis.materialishprogress;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.view.ContextThemeWrapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+@RunWith(RobolectricGradleTestRunner.class) @Config(constants = BuildConfig.class, sdk = 21)
+public class WheelAttributesTest {
+  private Context context;
+
+  @Before public void setUp() {
+    WheelAttributes.clearCache();
+    context = RuntimeEnvironment.application;
+  }
+
+  @Test public void defaultsAreParsed() {
+    WheelAttributes attributes = WheelAttributes.obtain(context, null);
+
+    assertEquals(WheelAnimator.DEFAULT_SPIN_SPEED, attributes.spinSpeed, 0.001f);
+    assertEquals(WheelAnimator.DEFAULT_BAR_SPIN_CYCLE_TIME, attributes.barSpinCycleTime);
+    assertEquals(ProgressWheel.DEFAULT_BAR_COLOR, attributes.style.barColor);
+  }
+
+  @Test public void sameThemeAndAttributesAreParsedOnce() {
+    WheelAttributes attributes = WheelAttributes.obtain(context, null);
+
+    assertSame(attributes, WheelAttributes.obtain(context, null));
+  }
+
+  @Test public void otherThemesAreParsedAgain() {
+    WheelAttributes attributes = WheelAttributes.obtain(context, null);
+
+    final Resources.Theme otherTheme = context.getResources().newTheme();
+    Context otherContext = new ContextThemeWrapper(context, 0) {
+      @Override public Resources.Theme getTheme() {
+        return otherTheme;
+      }
+    };
+
+    assertNotSame(attributes, WheelAttributes.obtain(otherContext, null));
+    // The look is the same, so the style is still shared
+    assertSame(attributes.style, WheelAttributes.obtain(otherContext, null).style);
+  }
+}
@@ -0,0 +1,44 @@
+package com.pnikosis.materialishprogress;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class WheelEasingTest {
+  // Less than a hundredth of a degree on the wheel
+  private static final float DELTA = 0.01f / 360;
+
+  @Test public void tablesMatchTheCurves() {
+    for (int i = 0; i <= 1000; i++) {
+      float x = i / 1000.0f;
+      assertEquals((float) Math.cos((x + 1) * Math.PI) / 2 + 0.5f,
+          WheelEasing.BAR_GROWTH.valueAt(x), DELTA);
+      assertEquals(1.0f - Math.pow(1.0f - x, 2), WheelEasing.PROGRESS_SWEEP.valueAt(x), DELTA);
+      assertEquals(1.0f - Math.pow(1.0f - x, 4), WheelEasing.PROGRESS_OFFSET.valueAt(x), DELTA);
+    }
+  }
+
+  @Test public void valuesAreClamped() {
+    assertEquals(0.0f, WheelEasing.PROGRESS_SWEEP.valueAt(-1.0f), 0);
+    assertEquals(1.0f, WheelEasing.PROGRESS_SWEEP.valueAt(2.0f), 0);
+  }
+
+  @Test public void customCurveIsInterpolated() {
+    WheelEasing square = WheelEasing.fromCurve(new WheelEasing.Curve() {
+      @Override public float valueAt(float x) {
+        return x * x;
+      }
+    }, 2);
+
+    assertEquals(0.25f, square.valueAt(0.5f), 0);
+    assertEquals(0.125f, square.valueAt(0.25f), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class) public void atLeastOneSample() {
+    WheelEasing.fromCurve(new WheelEasing.Curve() {
+      @Override public float valueAt(float x) {
+        return x;
+      }
+    }, 0);
+  }
+}
@@ -0,0 +1,83 @@
+package com.pnikosis.materialishprogress;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class WheelSmoothingTest {
+  private static final long MILLI = 1000000L;
+  private static final float DELTA = 0.0001f;
+
+  @Test public void progressDoesNotDependOnFrameRate() {
+    WheelAnimator smooth = smoothedAnimator(WheelSmoothing.criticallyDamped(300));
+    WheelAnimator choppy = smoothedAnimator(WheelSmoothing.criticallyDamped(300));
+    smooth.setTargetProgress(270, 0);
+    choppy.setTargetProgress(270, 0);
+
+    for (long time = 16 * MILLI; time <= 192 * MILLI; time += 16 * MILLI) {
+      smooth.update(time);
+    }
+    choppy.update(96 * MILLI);
+    choppy.update(192 * MILLI);
+
+    assertEquals(smooth.getProgress(), choppy.getProgress(), DELTA);
+  }
+
+  @Test public void targetIsReachedInBoundedTime() {
+    WheelAnimator animator = smoothedAnimator(WheelSmoothing.criticallyDamped(300));
+    animator.setTargetProgress(360, 0);
+
+    assertTrue(animator.update(100 * MILLI));
+    assertTrue(animator.getProgress() > 180 && animator.getProgress() < 360);
+
+    animator.update(450 * MILLI);
+    assertEquals(360, animator.getProgress(), 0);
+    assertFalse(animator.update(466 * MILLI));
+  }
+
+  @Test public void newTargetKeepsPositionAndSpeed() {
+    WheelAnimator animator = smoothedAnimator(WheelSmoothing.criticallyDamped(300));
+    animator.setTargetProgress(180, 0);
+    animator.update(50 * MILLI);
+    float before = animator.getProgress();
+
+    animator.setTargetProgress(360, 60 * MILLI);
+    animator.update(50 * MILLI);
+    assertEquals(before, animator.getProgress(), DELTA);
+
+    // Still moving forward right after, it doesn't stop and start again
+    animator.update(51 * MILLI);
+    assertTrue(animator.getProgress() > before);
+  }
+
+  @Test public void springGoesPastTheTargetAndSettles() {
+    WheelAnimator animator = smoothedAnimator(WheelSmoothing.spring(500, 0.3f));
+    animator.setTargetProgress(180, 0);
+
+    float max = 0;
+    for (long time = 16 * MILLI; time <= 800 * MILLI; time += 16 * MILLI) {
+      animator.update(time);
+      max = Math.max(max, animator.getProgress());
+    }
+
+    assertTrue(max > 180);
+    assertEquals(180, animator.getProgress(), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class) public void springNeedsUnderdamping() {
+    WheelSmoothing.spring(500, 1.0f);
+  }
+
+  @Test(expected = IllegalArgumentException.class) public void durationMustBePositive() {
+    WheelSmoothing.criticallyDamped(0);
+  }
+
+  private static WheelAnimator smoothedAnimator(WheelSmoothing smoothing) {
+    WheelAnimator animator = new WheelAnimator();
+    animator.setLinearProgress(true);
+    animator.setSmoothing(smoothing);
+    return animator;
+  }
+}
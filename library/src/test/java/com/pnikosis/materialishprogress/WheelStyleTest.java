@@ -0,0 +1,54 @@
+package com.pnikosis.materialishprogress;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricGradleTestRunner.class) @Config(constants = BuildConfig.class, sdk = 21)
+public class WheelStyleTest {
+
+  @Test public void sameValuesGiveTheSameStyle() {
+    WheelStyle style = WheelStyle.obtain(28, 4, 4, false, 0xAA000000, 0x00FFFFFF, false);
+
+    assertSame(style, WheelStyle.obtain(28, 4, 4, false, 0xAA000000, 0x00FFFFFF, false));
+    assertNotSame(style, WheelStyle.obtain(28, 4, 4, true, 0xAA000000, 0x00FFFFFF, false));
+    assertTrue(style.isShared());
+  }
+
+  @Test public void wheelsShareTheirStyleAndPaints() {
+    ProgressWheel first = new ProgressWheel(RuntimeEnvironment.application);
+    ProgressWheel second = new ProgressWheel(RuntimeEnvironment.application);
+
+    assertSame(first.getStyle(), second.getStyle());
+    assertSame(first.getStyle().barPaint, second.getStyle().barPaint);
+  }
+
+  @Test public void changingAWheelCopiesItsStyleOnce() {
+    ProgressWheel first = new ProgressWheel(RuntimeEnvironment.application);
+    ProgressWheel second = new ProgressWheel(RuntimeEnvironment.application);
+    WheelStyle shared = second.getStyle();
+
+    first.setBarColor(0xFFFF0000);
+    WheelStyle copy = first.getStyle();
+    first.setBarWidth(10);
+
+    assertFalse(copy.isShared());
+    assertSame(copy, first.getStyle());
+    assertEquals(0xFFFF0000, copy.barPaint.getColor());
+    assertEquals(10, copy.barPaint.getStrokeWidth(), 0);
+    assertSame(shared, second.getStyle());
+    assertEquals(0xAA000000, shared.barPaint.getColor());
+  }
+
+  @Test(expected = IllegalStateException.class) public void sharedStylesCantChange() {
+    WheelStyle.obtain(28, 4, 4, false, 0xAA000000, 0x00FFFFFF, false).setBarColor(0xFFFF0000);
+  }
+}